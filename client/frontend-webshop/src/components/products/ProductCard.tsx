@@ -36,7 +36,7 @@ export const ProductCard: FC<ProductCardProps> = ({ product }) => {
       <div className="position-relative">
         <Card.Img
           variant="top"
-          src={`http://localhost:9090${product.imageUrl}`}
+          src={`http://localhost:9090${product.cardUrl ?? product.imageUrl}`}
           alt={product.name}
           style={{
             height: "200px",
@@ -3,6 +3,8 @@ import { CartItem, CartResponse, CheckoutRequest } from "../types/models";
 
 class CartService {
   private readonly CART_KEY = "cart_items";
+  // Isti ključ za dvostruki klik i ponovljene pokušaje - server vraća prvi odgovor umjesto nove narudžbe
+  private checkoutKey: string | null = null;
 
   private saveCartToStorage(items: CartItem[]) {
     localStorage.setItem(this.CART_KEY, JSON.stringify(items));
@@ -75,15 +77,24 @@ class CartService {
 
       console.log("Checkout payload:", JSON.stringify(payload, null, 2));
 
+      this.checkoutKey ??= crypto.randomUUID();
       const response = await api.post("/cart/checkout", payload, {
-        headers: { "Content-Type": "application/json" },
+        headers: {
+          "Content-Type": "application/json",
+          "Idempotency-Key": this.checkoutKey,
+        },
       });
+      this.checkoutKey = null;
       if (response.data.success) {
         this.clearCart();
       }
       return response.data;
     } catch (error) {
       console.error("Checkout error:", error);
+      // Bez odgovora (mreža, timeout) ključ ostaje za ponovni pokušaj
+      if (error.response) {
+        this.checkoutKey = null;
+      }
       if (error.response?.status === 401) {
         throw new Error("Morate biti prijavljeni za završetak kupnje");
       }
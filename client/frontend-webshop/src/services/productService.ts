@@ -8,6 +8,7 @@ export class ProductService {
       if (filters.categoryId) params.append("categoryId", filters.categoryId);
       if (filters.sortBy) params.append("sortBy", filters.sortBy);
       if (filters.sortOrder) params.append("sortOrder", filters.sortOrder);
+      params.append("unpaged", "true");
 
       const response = await api.get<Product[]>("/products", { params });
       return response.data;
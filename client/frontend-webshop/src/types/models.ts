@@ -5,12 +5,16 @@ export interface Product {
   price: number;
   stock: number;
   imageUrl: string;
+  thumbnailUrl?: string;
+  cardUrl?: string;
+  detailUrl?: string;
   categoryId: number;
 }
 
 export interface Category {
   id: number;
   name: string;
+  imageUrl?: string;
 }
 
 export interface ProductFilters {
@@ -22,8 +22,18 @@ public class PaypalConfig {
     @Value("${paypal.mode}")
     private String mode;
 
+    @Value("${app.paypal.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${app.paypal.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    // Bez timeouta SDK čeka PayPal neograničeno i drži PaypalClient dretvu
     @Bean
     public APIContext apiContext(){
-        return new APIContext(clientId, clientSecret, mode);
+        APIContext apiContext = new APIContext(clientId, clientSecret, mode);
+        apiContext.addConfiguration("http.ConnectionTimeOut", String.valueOf(connectTimeoutMs));
+        apiContext.addConfiguration("http.ReadTimeOut", String.valueOf(readTimeoutMs));
+        return apiContext;
     }
 }
@@ -1,20 +1,26 @@
 package com.webshop.app.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Paths;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
     @Value("${app.image.upload-dir}")
     private String uploadDir;
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Dodajemo pristup resursima iz static direktorija
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadDir + "/");
+    // Uploadi se poslužuju zasebnim servletom, mimo DispatcherServleta i sigurnosnog lanca
+    @Bean
+    public ServletRegistrationBean<UploadResourceServlet> uploadResourceServlet() {
+        ServletRegistrationBean<UploadResourceServlet> registration =
+                new ServletRegistrationBean<>(new UploadResourceServlet(Paths.get(uploadDir)), "/uploads/*");
+        registration.setName("uploadResourceServlet");
+        registration.setLoadOnStartup(1);
+        return registration;
     }
 }
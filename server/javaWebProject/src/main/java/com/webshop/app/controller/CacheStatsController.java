@@ -0,0 +1,40 @@
+package com.webshop.app.controller;
+
+import com.webshop.app.dto.CacheStatsDTO;
+import com.webshop.app.dto.CatalogStoreStatsDTO;
+import com.webshop.app.service.CatalogColumnStore;
+import com.webshop.app.service.ProductCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache-stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+public class CacheStatsController {
+
+    private final ProductCache productCache;
+    private final CatalogColumnStore catalogColumnStore;
+
+    @GetMapping
+    public ResponseEntity<CacheStatsDTO> getProductCacheStats() {
+        return ResponseEntity.ok(productCache.getStats());
+    }
+
+    @GetMapping("/catalog-store")
+    public ResponseEntity<CatalogStoreStatsDTO> getCatalogStoreStats() {
+        return ResponseEntity.ok(catalogColumnStore.getStats());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clearProductCache() {
+        productCache.clear();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Cache proizvoda ispražnjen"
+        ));
+    }
+}
@@ -5,6 +5,7 @@ import com.webshop.app.exception.UserNotFoundException;
 import com.webshop.app.model.ApplicationUser;
 import com.webshop.app.repository.ApplicationUserRepository;
 import com.webshop.app.service.CartService;
+import com.webshop.app.service.CheckoutIdempotency;
 import com.webshop.app.service.OrderService;
 import com.webshop.app.service.PaypalService;
 import com.webshop.app.service.ProductService;
@@ -15,6 +16,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 @RestController
@@ -28,6 +30,7 @@ public class CartController {
     private final ApplicationUserRepository applicationUserRepository;
     private final PaypalService payPalService;
     private final ProductService productService;
+    private final CheckoutIdempotency checkoutIdempotency;
 
 
 //    @PostMapping("/checkout")
@@ -129,15 +132,27 @@ public class CartController {
 //    }
 
     @PostMapping("/checkout")
-    public ResponseEntity<?> checkout(@RequestBody CheckoutRequestDTO checkoutRequest,
-                                      Authentication authentication) {
+    public CompletableFuture<ResponseEntity<?>> checkout(@RequestBody CheckoutRequestDTO checkoutRequest,
+                                                         @RequestHeader(value = CheckoutIdempotency.HEADER,
+                                                                 required = false) String idempotencyKey,
+                                                         Authentication authentication) {
 
         if (authentication == null || !authentication.isAuthenticated()
                 || authentication instanceof AnonymousAuthenticationToken) {
-            return ResponseEntity.status(401)
-                    .body(Map.of("error", "User not authenticated"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(401)
+                    .body(Map.of("error", "User not authenticated")));
         }
 
+        if (idempotencyKey == null) {
+            return processCheckout(checkoutRequest, authentication);
+        }
+        // Ključ je vezan uz korisnika iz tokena, pa se ponovljeni zahtjev razrješava prije čitanja iz baze
+        return checkoutIdempotency.execute(authentication.getName(), idempotencyKey, checkoutRequest,
+                () -> processCheckout(checkoutRequest, authentication));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> processCheckout(CheckoutRequestDTO checkoutRequest,
+                                                                 Authentication authentication) {
         ApplicationUser user = applicationUserRepository.findByEmail(authentication.getName())
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
 
@@ -2,10 +2,13 @@ package com.webshop.app.controller;
 
 
 import com.webshop.app.dto.CategoryDTO;
+import com.webshop.app.dto.CategorySummaryDTO;
+import com.webshop.app.exception.FileSizeExceededException;
 import com.webshop.app.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 import java.util.Map;
@@ -18,11 +21,18 @@ public class CategoryController {
 
     private final CategoryService categoryService;
 
+    private static final long MAX_FILE_SIZE = 2L * 1024L * 1024L; // 2 MB
+
     @GetMapping
     public ResponseEntity<List<CategoryDTO>> getAllCategories() {
         return ResponseEntity.ok(categoryService.getAllCategories());
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<List<CategorySummaryDTO>> getCategorySummaries() {
+        return ResponseEntity.ok(categoryService.getCategorySummaries());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Integer id) {
         CategoryDTO category = categoryService.getCategoryById(id);
@@ -66,6 +76,37 @@ public class CategoryController {
         }
     }
 
+    @PostMapping("/{id}/image")
+    public ResponseEntity<?> uploadCategoryImage(
+            @PathVariable Integer id,
+            @RequestPart("imageFile") MultipartFile imageFile) {
+        try {
+            if (imageFile.isEmpty()) {
+                throw new IllegalArgumentException("Slika nije priložena.");
+            }
+            if (imageFile.getSize() > MAX_FILE_SIZE) {
+                throw new FileSizeExceededException("Slika je prevelika! Maksimalno 2MB.");
+            }
+
+            CategoryDTO updatedCategory = categoryService.updateCategoryImage(id, imageFile);
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", "Slika kategorije uspješno spremljena",
+                    "category", updatedCategory
+            ));
+        } catch (FileSizeExceededException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Greška prilikom spremanja slike kategorije: " + e.getMessage()
+            ));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteCategory(@PathVariable Integer id) {
         try {
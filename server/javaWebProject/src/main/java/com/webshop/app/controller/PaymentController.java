@@ -5,14 +5,19 @@ import com.paypal.base.rest.PayPalRESTException;
 import com.webshop.app.model.OrderStatus;
 import com.webshop.app.service.CartService;
 import com.webshop.app.service.OrderService;
-import com.webshop.app.service.PaypalService;
+import com.webshop.app.service.PaypalClient;
 import com.webshop.app.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/payment")
@@ -21,13 +26,16 @@ import java.util.Map;
 @Slf4j
 public class PaymentController {
 
-    private final PaypalService paypalService;
+    private final PaypalClient paypalClient;
     private final UserService userService;
     private final CartService cartService;
     private final OrderService orderService;
 
+    @Value("${app.paypal.timeout-ms:10000}")
+    private long paypalTimeoutMs;
+
     @GetMapping("/success")
-    public ResponseEntity<?> paymentSuccess(
+    public CompletableFuture<ResponseEntity<?>> paymentSuccess(
             @RequestParam("paymentId") String paymentId,
             @RequestParam("PayerID") String payerId,
             @RequestParam("orderId") Long orderId) {
@@ -43,67 +51,105 @@ public class PaymentController {
             // Ako je narudžba već potvrđena, vrati uspjeh
             if (currentStatus == OrderStatus.CONFIRMED) {
                 log.info("Order {} is already confirmed", orderId);
-                return ResponseEntity.ok(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of(
                         "success", true,
                         "message", "Narudžba je već potvrđena",
                         "orderId", orderId
-                ));
+                )));
             }
 
             // Ako je narudžba otkazana, vrati grešku
             if (currentStatus == OrderStatus.CANCELLED) {
                 log.warn("Attempting to confirm cancelled order {}", orderId);
-                return ResponseEntity.badRequest().body(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                         "success", false,
                         "message", "Narudžba je otkazana i ne može se potvrditi",
                         "orderId", orderId
-                ));
+                )));
             }
 
             // Provjeri da li je status PENDING_PAYMENT
             if (currentStatus != OrderStatus.PENDING_PAYMENT) {
                 log.warn("Order {} is not in PENDING_PAYMENT state, current state: {}", orderId, currentStatus);
-                return ResponseEntity.badRequest().body(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                         "success", false,
                         "message", "Narudžba nije u ispravnom stanju za potvrdu plaćanja."
-                ));
+                )));
             }
 
             // Pronađi narudžbu i provjeri da li odgovara paymentId
             if (!orderService.validateOrderPayment(orderId, paymentId)) {
                 log.warn("Payment validation failed for order {}", orderId);
-                return ResponseEntity.badRequest().body(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                         "success", false,
                         "message", "Nevažeća narudžba ili plaćanje."
-                ));
+                )));
             }
 
-            // Izvrši PayPal plaćanje
+            // Izvrši PayPal plaćanje na PaypalClient dretvama - Tomcat dretva se odmah oslobađa,
+            // a potvrda ili otkazivanje narudžbe ide na completion dretve
             log.info("Executing PayPal payment for order {}", orderId);
-            Payment payment = paypalService.executePayment(paymentId, payerId);
-            log.info("PayPal payment executed, status: {}", payment.getState());
+            CompletableFuture<ResponseEntity<?>> execution = paypalClient.executePayment(paymentId, payerId)
+                    .handleAsync((payment, error) -> {
+                        if (error == null) {
+                            try {
+                                return completePayment(orderId, payment);
+                            } catch (RuntimeException e) {
+                                return paymentFailed(orderId, PaypalClient.unwrap(e));
+                            }
+                        }
+                        return paymentFailed(orderId, PaypalClient.unwrap(error));
+                    }, paypalClient.completionExecutor());
+
+            // Istek vremena ne otkazuje narudžbu: PayPal je plaćanje možda izvršio,
+            // pa zakašnjeli odgovor i dalje potvrđuje ili otkazuje narudžbu
+            return execution.copy().completeOnTimeout(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of(
+                    "success", false,
+                    "message", "PayPal nije odgovorio na vrijeme. Provjerite status narudžbe za nekoliko trenutaka.",
+                    "orderId", orderId
+            )), paypalTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(paymentFailed(orderId, e));
+        }
+    }
 
-            if ("approved".equals(payment.getState())) {
-                log.info("Confirming order {}", orderId);
-                orderService.confirmOrder(orderId);
+    private ResponseEntity<?> completePayment(Long orderId, Payment payment) {
+        log.info("PayPal payment executed, status: {}", payment.getState());
 
-                return ResponseEntity.ok(Map.of(
-                        "success", true,
-                        "message", "Vaša narudžba je uspješno plaćena putem PayPala!",
-                        "orderId", orderId
-                ));
-            }
+        if ("approved".equals(payment.getState())) {
+            log.info("Confirming order {}", orderId);
+            orderService.confirmOrder(orderId);
 
-            // Ako plaćanje nije odobreno, otkaži narudžbu
-            log.warn("Payment not approved for order {}, state: {}", orderId, payment.getState());
-            orderService.cancelOrder(orderId, "Plaćanje nije odobreno. Status: " + payment.getState());
-            return ResponseEntity.badRequest().body(Map.of(
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", "Vaša narudžba je uspješno plaćena putem PayPala!",
+                    "orderId", orderId
+            ));
+        }
+
+        // Ako plaćanje nije odobreno, otkaži narudžbu
+        log.warn("Payment not approved for order {}, state: {}", orderId, payment.getState());
+        orderService.cancelOrder(orderId, "Plaćanje nije odobreno. Status: " + payment.getState());
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "Plaćanje nije odobreno.",
+                "paymentState", payment.getState(),
+                "orderId", orderId
+        ));
+    }
+
+    private ResponseEntity<?> paymentFailed(Long orderId, Throwable e) {
+        // Poziv nije ni poslan PayPalu - narudžba ostaje na čekanju i korisnik može ponoviti potvrdu
+        if (e instanceof RejectedExecutionException) {
+            log.warn("PayPal execution rejected for order {} - too many calls in flight", orderId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
                     "success", false,
-                    "message", "Plaćanje nije odobreno.",
-                    "paymentState", payment.getState(),
+                    "message", "PayPal je trenutno zauzet, pokušajte ponovno.",
                     "orderId", orderId
             ));
-        } catch (PayPalRESTException e) {
+        }
+
+        if (e instanceof PayPalRESTException) {
             // U slučaju greške, otkaži narudžbu
             log.error("PayPal execution error for order {}: {}", orderId, e.getMessage(), e);
             orderService.cancelOrder(orderId, "Greška u obradi plaćanja: " + e.getMessage());
@@ -112,20 +158,19 @@ public class PaymentController {
                     "message", "Došlo je do pogreške tijekom obrade PayPal plaćanja: " + e.getMessage(),
                     "orderId", orderId
             ));
-        } catch (Exception e) {
+        }
 
-            log.error("Unexpected error in payment processing for order {}: {}", orderId, e.getMessage(), e);
-            try {
-                orderService.cancelOrder(orderId, "Neočekivana greška: " + e.getMessage());
-            } catch (Exception ex) {
-                log.error("Failed to cancel order {} after error: {}", orderId, ex.getMessage());
-            }
-            return ResponseEntity.badRequest().body(Map.of(
-                    "success", false,
-                    "message", "Neočekivana greška: " + e.getMessage(),
-                    "orderId", orderId
-            ));
+        log.error("Unexpected error in payment processing for order {}: {}", orderId, e.getMessage(), e);
+        try {
+            orderService.cancelOrder(orderId, "Neočekivana greška: " + e.getMessage());
+        } catch (Exception ex) {
+            log.error("Failed to cancel order {} after error: {}", orderId, ex.getMessage());
         }
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "Neočekivana greška: " + e.getMessage(),
+                "orderId", orderId
+        ));
     }
 
     @GetMapping("/cancel")
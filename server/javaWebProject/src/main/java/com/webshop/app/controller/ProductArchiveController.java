@@ -0,0 +1,54 @@
+package com.webshop.app.controller;
+
+import com.webshop.app.dto.ArchivedProductDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.exception.ResourceNotFoundException;
+import com.webshop.app.service.ProductArchiveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products/archive")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+public class ProductArchiveController {
+
+    private final ProductArchiveService productArchiveService;
+
+    @GetMapping
+    public ResponseEntity<List<ArchivedProductDTO>> getArchivedProducts(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productArchiveService.getArchivedProducts(limit));
+    }
+
+    @PostMapping("/run")
+    public ResponseEntity<?> archiveDeletedProducts() {
+        int archived = productArchiveService.archiveDeletedProducts();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Arhivirano proizvoda: " + archived,
+                "archived", archived
+        ));
+    }
+
+    @PostMapping("/{id}/restore")
+    public ResponseEntity<?> restoreProduct(@PathVariable Long id) {
+        try {
+            ProductDTO restored = productArchiveService.restoreProduct(id);
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", "Proizvod uspješno vraćen iz arhive",
+                    "product", restored
+            ));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package com.webshop.app.controller;
 
 import com.webshop.app.dto.CategoryDTO;
+import com.webshop.app.dto.ProductBulkUpdateDTO;
+import com.webshop.app.dto.ProductBulkUpdateResultDTO;
 import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.dto.ProductFacetsDTO;
+import com.webshop.app.dto.ProductFilterDTO;
+import com.webshop.app.dto.ProductImportResultDTO;
+import com.webshop.app.dto.ProductSearchResultDTO;
+import com.webshop.app.dto.ProductSuggestionsDTO;
 import com.webshop.app.exception.FileSizeExceededException;
+import com.webshop.app.service.CatalogSnapshotCache;
 import com.webshop.app.service.CategoryService;
+import com.webshop.app.service.ProductImportService;
 import com.webshop.app.service.ProductService;
-import com.webshop.app.utils.ImageUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
@@ -24,26 +34,69 @@ public class ProductController {
 
     private final ProductService productService;
     private final CategoryService categoryService;
-
-    @Value("${app.image.upload-dir}")
-    private String uploadDir;
+    private final CatalogSnapshotCache catalogSnapshotCache;
+    private final ProductImportService productImportService;
 
     private static final long MAX_FILE_SIZE = 2L * 1024L * 1024L; // 2 MB
 
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts(
+    public ResponseEntity<?> getAllProducts(
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(required = false) String sortOrder) {
-
-        List<ProductDTO> products;
-        if (categoryId != null) {
-            products = productService.getProductsByCategoryId(categoryId.intValue(), sortBy, sortOrder);
-        } else {
-            products = productService.getAllProducts(sortBy, sortOrder);
+            @RequestParam(required = false) String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "false") boolean unpaged) {
+
+        ProductFilterDTO filter = new ProductFilterDTO(categoryId, minPrice, maxPrice, inStock);
+        if (filter.hasFacetCriteria()) {
+            return ResponseEntity.ok(productService.getFilteredProductsPage(filter, sortBy, sortOrder, cursor, limit));
         }
 
-        return ResponseEntity.ok(products);
+        // Odgovor je isti za sve korisnike unutar verzije kataloga - šaljemo već serijalizirane bajtove
+        String snapshotKey = CatalogSnapshotCache.key(categoryId, sortBy, sortOrder, cursor, limit, unpaged);
+        byte[] json = catalogSnapshotCache.get(snapshotKey, () -> {
+            if (!unpaged) {
+                Integer categoryFilter = categoryId != null ? categoryId.intValue() : null;
+                return productService.getProductsPage(categoryFilter, sortBy, sortOrder, cursor, limit);
+            }
+            if (categoryId != null) {
+                return productService.getProductsByCategoryId(categoryId.intValue(), sortBy, sortOrder);
+            }
+            return productService.getAllProducts(sortBy, sortOrder);
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getProductFacets(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock) {
+        ProductFilterDTO filter = new ProductFilterDTO(categoryId, minPrice, maxPrice, inStock);
+        return ResponseEntity.ok(productService.getProductFacets(filter));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResultDTO> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.searchProducts(query, categoryId, limit));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ProductSuggestionsDTO> suggestProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.suggestProducts(query, limit));
     }
 
     @GetMapping("/{id}")
@@ -64,7 +117,7 @@ public class ProductController {
             @RequestPart(value = "imageFile", required = false) MultipartFile imageFile) {
         try {
             if (imageFile != null && !imageFile.isEmpty()) {
-                validateAndSetImage(productDTO, imageFile);
+                validateImage(imageFile);
             }
 
             ProductDTO savedProduct = productService.saveProduct(productDTO, imageFile);
@@ -86,6 +139,44 @@ public class ProductController {
         }
     }
 
+    // Tijelo zahtjeva se čita kao tok, bez učitavanja cijele datoteke u memoriju
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProducts(HttpServletRequest request) {
+        try {
+            ProductImportResultDTO result = MediaType.parseMediaType(request.getContentType())
+                    .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                    ? productImportService.importCsv(request.getInputStream())
+                    : productImportService.importNdjson(request.getInputStream());
+            return ResponseEntity.ok(Map.of(
+                    "success", result.getFailed() == 0,
+                    "message", "Uvezeno proizvoda: " + result.getImported() + ", odbijeno: " + result.getFailed(),
+                    "result", result
+            ));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Greška prilikom uvoza proizvoda: " + e.getMessage()
+            ));
+        }
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<?> bulkUpdateProducts(@RequestBody List<ProductBulkUpdateDTO> updates) {
+        try {
+            ProductBulkUpdateResultDTO result = productService.bulkUpdatePriceAndStock(updates);
+            return ResponseEntity.ok(Map.of(
+                    "success", result.getNotFound().isEmpty(),
+                    "message", "Ažurirano proizvoda: " + result.getUpdated() + ", nije pronađeno: " + result.getNotFound().size(),
+                    "result", result
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Greška prilikom skupnog ažuriranja: " + e.getMessage()
+            ));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProduct(
             @PathVariable Long id,
@@ -95,7 +186,7 @@ public class ProductController {
             productDTO.setId(id);
 
             if (imageFile != null && !imageFile.isEmpty()) {
-                validateAndSetImage(productDTO, imageFile);
+                validateImage(imageFile);
             } else {
                 ProductDTO existing = productService.getProductById(id.intValue());
                 productDTO.setImageUrl(existing.getImageUrl());
@@ -136,14 +227,10 @@ public class ProductController {
         }
     }
 
-    private void validateAndSetImage(ProductDTO productDTO, MultipartFile imageFile)
-            throws FileSizeExceededException, IOException {
+    // Datoteku sprema servis (jednom, pod sažetkom sadržaja); ovdje se samo provjerava veličina
+    private void validateImage(MultipartFile imageFile) throws FileSizeExceededException {
         if (imageFile.getSize() > MAX_FILE_SIZE) {
             throw new FileSizeExceededException("Slika je prevelika! Maksimalno 2MB.");
         }
-
-        String fileName = System.currentTimeMillis() + "_" + imageFile.getOriginalFilename();
-        String imageUrl = ImageUtils.saveFile(uploadDir, fileName, imageFile);
-        productDTO.setImageUrl(imageUrl);
     }
 }
@@ -0,0 +1,34 @@
+package com.webshop.app.controller;
+
+import com.webshop.app.dto.UploadCleanupReportDTO;
+import com.webshop.app.service.UploadCleanupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/uploads/orphans")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+public class UploadCleanupController {
+
+    private final UploadCleanupService uploadCleanupService;
+
+    // Izvještaj bez ikakvih izmjena na disku
+    @GetMapping
+    public ResponseEntity<UploadCleanupReportDTO> getOrphanReport() {
+        return ResponseEntity.ok(uploadCleanupService.sweep(true));
+    }
+
+    @PostMapping("/sweep")
+    public ResponseEntity<?> sweepOrphans() {
+        UploadCleanupReportDTO report = uploadCleanupService.sweep(false);
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "U smeće premješteno datoteka: " + report.getOrphanedFiles(),
+                "report", report
+        ));
+    }
+}
@@ -0,0 +1,20 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedProductDTO {
+
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Long categoryId;
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,22 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStatsDTO {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private int productEntries;
+    private int listingEntries;
+    private int maxProductEntries;
+    private int maxListingEntries;
+    private double hitRatio;
+}
@@ -0,0 +1,22 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogStoreStatsDTO {
+
+    private int rows;
+    private int liveRows;
+    private int categories;
+    private int distinctImageUrls;
+    private long columnBytes;
+    private long textBytes;
+    private long dictionaryBytes;
+    private long priceIndexBytes;
+    private long totalBytes;
+    private long estimatedObjectHeapBytes;
+}
@@ -11,4 +11,5 @@ public class CategoryDTO {
 
     private Long id;
     private String name;
+    private String imageUrl;
 }
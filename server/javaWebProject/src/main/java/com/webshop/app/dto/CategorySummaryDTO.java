@@ -0,0 +1,16 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategorySummaryDTO {
+
+    private Long id;
+    private String name;
+    private Long liveProducts;
+    private Long totalProducts;
+}
@@ -0,0 +1,14 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportRowErrorDTO {
+
+    private long line;
+    private String message;
+}
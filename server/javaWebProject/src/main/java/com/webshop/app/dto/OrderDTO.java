@@ -2,6 +2,7 @@ package com.webshop.app.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.webshop.app.model.ApplicationUser;
+import com.webshop.app.model.OrderStatus;
 import com.webshop.app.model.PaymentMethod;
 import lombok.*;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -33,5 +34,20 @@ public class OrderDTO {
     private LocalDateTime orderDate;
     private String status;
 
+    // Koristi se u JPQL projekciji (OrderRepository.ORDER_DTO_SELECT), stavke se pune zasebnim upitom
+    public OrderDTO(Long id, Integer userId, String userFirstName, String userLastName, String userEmail,
+                    BigDecimal totalPrice, String shippingAddress, PaymentMethod paymentMethod,
+                    LocalDateTime orderDate, OrderStatus status) {
+        this.id = id;
+        this.userId = userId != null ? userId.longValue() : null;
+        this.userFirstName = userFirstName;
+        this.userLastName = userLastName;
+        this.userEmail = userEmail;
+        this.totalPrice = totalPrice;
+        this.shippingAddress = shippingAddress;
+        this.paymentMethod = paymentMethod;
+        this.orderDate = orderDate;
+        this.status = status != null ? status.toString() : null;
+    }
 }
 
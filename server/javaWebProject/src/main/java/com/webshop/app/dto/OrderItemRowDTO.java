@@ -0,0 +1,23 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderItemRowDTO {
+
+    private Long orderId;
+    private Long productId;
+    private String productName;
+    private BigDecimal price;
+    private Integer quantity;
+
+    public CartItemDTO toCartItemDTO() {
+        return new CartItemDTO(Math.toIntExact(productId), productName, price, quantity);
+    }
+}
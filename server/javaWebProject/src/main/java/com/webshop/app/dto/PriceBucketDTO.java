@@ -0,0 +1,17 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBucketDTO {
+
+    private BigDecimal from;
+    private BigDecimal to;
+    private int count;
+}
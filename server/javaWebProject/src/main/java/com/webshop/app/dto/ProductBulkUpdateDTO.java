@@ -0,0 +1,17 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBulkUpdateDTO {
+
+    private Long id;
+    private BigDecimal price;
+    private Integer stock;
+}
@@ -0,0 +1,18 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBulkUpdateResultDTO {
+
+    private int requested;
+    private int updated;
+    private List<Long> notFound;
+    private long durationMs;
+}
@@ -1,6 +1,7 @@
 package com.webshop.app.dto;
 
 import jakarta.validation.constraints.*;
+import com.webshop.app.utils.ImageVariants;
 import lombok.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -23,4 +24,31 @@ public class ProductDTO {
     private Long categoryId;
     private transient MultipartFile imageFile;
     private boolean deleted;
+
+    // Koristi se u JPQL projekcijama (ProductRepository.PRODUCT_DTO_SELECT)
+    public ProductDTO(Long id, String name, String description, BigDecimal price, String imageUrl,
+                      Integer stock, Integer categoryId, String categoryName, boolean deleted) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.imageUrl = imageUrl;
+        this.stock = stock;
+        this.categoryId = categoryId != null ? categoryId.longValue() : null;
+        this.categoryName = categoryName;
+        this.deleted = deleted;
+    }
+
+    // Umanjene varijante slike; dok ih pozadinska obrada ne generira, vraća se originalna slika
+    public String getThumbnailUrl() {
+        return ImageVariants.resolve(imageUrl, ImageVariants.Size.THUMBNAIL);
+    }
+
+    public String getCardUrl() {
+        return ImageVariants.resolve(imageUrl, ImageVariants.Size.CARD);
+    }
+
+    public String getDetailUrl() {
+        return ImageVariants.resolve(imageUrl, ImageVariants.Size.DETAIL);
+    }
 }
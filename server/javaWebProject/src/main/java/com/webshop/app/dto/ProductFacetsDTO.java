@@ -0,0 +1,19 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFacetsDTO {
+
+    private int totalHits;
+    private Map<Long, Integer> categories;
+    private List<PriceBucketDTO> priceBuckets;
+    private int inStock;
+}
@@ -0,0 +1,22 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFilterDTO {
+
+    private Long categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean inStock;
+
+    public boolean hasFacetCriteria() {
+        return minPrice != null || maxPrice != null || Boolean.TRUE.equals(inStock);
+    }
+}
@@ -0,0 +1,20 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportResultDTO {
+
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private List<ImportRowErrorDTO> errors;
+    private boolean errorsTruncated;
+    private long durationMs;
+}
@@ -0,0 +1,18 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageDTO {
+
+    private List<ProductDTO> items;
+    private String nextCursor;
+    private int limit;
+    private boolean hasMore;
+}
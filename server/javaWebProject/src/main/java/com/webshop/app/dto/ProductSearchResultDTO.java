@@ -0,0 +1,17 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResultDTO {
+
+    private String query;
+    private int totalHits;
+    private List<ProductDTO> items;
+}
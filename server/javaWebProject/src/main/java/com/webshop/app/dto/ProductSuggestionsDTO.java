@@ -0,0 +1,17 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSuggestionsDTO {
+
+    private String query;
+    private List<SuggestionDTO> products;
+    private List<SuggestionDTO> categories;
+}
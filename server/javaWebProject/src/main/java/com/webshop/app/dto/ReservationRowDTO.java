@@ -0,0 +1,18 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationRowDTO {
+
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,14 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionDTO {
+
+    private Long id;
+    private String name;
+}
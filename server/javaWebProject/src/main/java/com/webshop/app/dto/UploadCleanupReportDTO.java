@@ -0,0 +1,23 @@
+package com.webshop.app.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadCleanupReportDTO {
+
+    private boolean dryRun;
+    private long scannedFiles;
+    private long referencedImages;
+    private long orphanedFiles;
+    private long orphanedBytes;
+    private long purgedFromTrash;
+    private List<String> orphans;
+    private boolean orphansTruncated;
+    private long durationMs;
+}
@@ -0,0 +1,17 @@
+package com.webshop.app.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class CategoryChangedEvent extends ApplicationEvent {
+
+    private final Long categoryId;
+    private final boolean deleted;
+
+    public CategoryChangedEvent(Object source, Long categoryId, boolean deleted) {
+        super(source);
+        this.categoryId = categoryId;
+        this.deleted = deleted;
+    }
+}
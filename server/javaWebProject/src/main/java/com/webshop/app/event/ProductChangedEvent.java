@@ -0,0 +1,30 @@
+package com.webshop.app.event;
+
+import com.webshop.app.dto.ProductDTO;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class ProductChangedEvent extends ApplicationEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final ChangeType changeType;
+    private final ProductDTO product;
+    // Stanje prije promjene; za CREATED su oba null jer proizvod prije nije postojao
+    private final Long previousCategoryId;
+    private final Boolean previousDeleted;
+
+    public ProductChangedEvent(Object source, ChangeType changeType, ProductDTO product,
+                               Long previousCategoryId, Boolean previousDeleted) {
+        super(source);
+        this.changeType = changeType;
+        this.product = product;
+        this.previousCategoryId = previousCategoryId;
+        this.previousDeleted = previousDeleted;
+    }
+}
@@ -0,0 +1,19 @@
+package com.webshop.app.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+
+// Skupna promjena proizvoda (import, masovno ažuriranje). productIds == null znači da se ne zna
+// koji su proizvodi promijenjeni, pa pogledi u memoriji trebaju potpuno osvježavanje.
+@Getter
+public class ProductsBulkChangedEvent extends ApplicationEvent {
+
+    private final Collection<Long> productIds;
+
+    public ProductsBulkChangedEvent(Object source, Collection<Long> productIds) {
+        super(source);
+        this.productIds = productIds;
+    }
+}
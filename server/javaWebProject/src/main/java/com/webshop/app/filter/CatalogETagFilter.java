@@ -0,0 +1,52 @@
+package com.webshop.app.filter;
+
+import com.webshop.app.service.CatalogVersion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Uvjetni GET nad katalogom: ako klijent već ima trenutnu verziju, vraća se 304
+// prije kontrolera - bez upita na bazu i bez serijalizacije.
+@Component
+@RequiredArgsConstructor
+public class CatalogETagFilter extends OncePerRequestFilter {
+
+    private final CatalogVersion catalogVersion;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return true;
+        }
+        String uri = request.getRequestURI();
+        return !(uri.equals("/api/products") || uri.startsWith("/api/products/")
+                || uri.equals("/api/categories") || uri.startsWith("/api/categories/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // Verzija se čita prije dohvaćanja podataka, pa odgovor nikad nije stariji od svog ETag-a
+        String etag = catalogVersion.etag();
+        // Bez ovoga Spring Security postavlja no-store, pa preglednik ne čuva odgovor i nikad ne šalje If-None-Match.
+        // Zahtjevi dolaze s Authorization zaglavljem - odgovor smije čuvati samo preglednik, ne dijeljeni cache.
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        response.setHeader("ETag", etag);
+        filterChain.doFilter(request, response);
+    }
+}
@@ -28,6 +28,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private UserDetailsServiceImpl userDetailsServiceImpl;
 
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/uploads/");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -25,21 +25,53 @@ public class RequestTimingFilter implements Filter {
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
+        // Statične slike se ne bilježe - upis u bazu bio bi skuplji od samog posluživanja
+        if (((HttpServletRequest) request).getRequestURI().startsWith("/uploads/")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
         long startTime = System.currentTimeMillis();
 
         chain.doFilter(request, response);
 
-        long duration = System.currentTimeMillis() - startTime;
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        RequestLog log = newLog((HttpServletRequest) request);
+
+        // Asinkroni zahtjev (PayPal) završava tek kad se pošalje odgovor, a ne kad se oslobodi dretva
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    log.setDuration(System.currentTimeMillis() - startTime);
+                    requestLogRepository.save(log);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+            return;
+        }
 
+        log.setDuration(System.currentTimeMillis() - startTime);
+        requestLogRepository.save(log);
+    }
+
+    private static RequestLog newLog(HttpServletRequest httpRequest) {
         RequestLog log = new RequestLog();
         log.setEndpoint(httpRequest.getRequestURI());
         log.setMethod(httpRequest.getMethod());
-        log.setDuration(duration);
         log.setTimestamp(LocalDateTime.now());
         log.setUsername(httpRequest.getRemoteUser());
         log.setIpAddress(httpRequest.getRemoteAddr());
-        requestLogRepository.save(log);
-
+        return log;
     }
 }
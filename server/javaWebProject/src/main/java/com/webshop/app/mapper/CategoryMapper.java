@@ -0,0 +1,14 @@
+package com.webshop.app.mapper;
+
+import com.webshop.app.dto.CategoryDTO;
+import com.webshop.app.model.Category;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface CategoryMapper {
+
+    CategoryDTO toDTO(Category category);
+
+    Category toEntity(CategoryDTO categoryDTO);
+}
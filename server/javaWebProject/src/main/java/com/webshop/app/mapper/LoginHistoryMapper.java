@@ -0,0 +1,16 @@
+package com.webshop.app.mapper;
+
+import com.webshop.app.dto.LoginHistoryDTO;
+import com.webshop.app.model.LoginHistory;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface LoginHistoryMapper {
+
+    @Mapping(target = "userEmail", source = "applicationUser.email")
+    @Mapping(target = "userFirstName", source = "applicationUser.firstName")
+    @Mapping(target = "userLastName", source = "applicationUser.lastName")
+    LoginHistoryDTO toDTO(LoginHistory loginHistory);
+}
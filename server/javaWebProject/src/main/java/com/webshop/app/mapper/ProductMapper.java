@@ -0,0 +1,20 @@
+package com.webshop.app.mapper;
+
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.model.Product;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface ProductMapper {
+
+    @Mapping(target = "categoryId", source = "category.id")
+    @Mapping(target = "categoryName", source = "category.name")
+    @Mapping(target = "imageFile", ignore = true)
+    ProductDTO toDTO(Product product);
+
+    // Kategoriju postavlja servis iz repozitorija, ne iz polja DTO-a
+    @Mapping(target = "category", ignore = true)
+    Product toEntity(ProductDTO productDTO);
+}
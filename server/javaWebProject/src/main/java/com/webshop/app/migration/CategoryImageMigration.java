@@ -0,0 +1,88 @@
+package com.webshop.app.migration;
+
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.service.ImageStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+// Jednokratna migracija: slike kategorija spremljene inline u stupcu Image (data URL ili base64)
+// zapisuju se kao datoteke u upload direktorij, a u retku ostaje samo ImageUrl.
+// Pokreće se s app.migrations.category-images=true; retci koji već imaju URL se preskaču.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.migrations.category-images", havingValue = "true")
+public class CategoryImageMigration implements ApplicationRunner {
+
+    private static final String SVG_MEDIA_TYPE = "image/svg+xml";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageStorageService imageStorageService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Integer> pending;
+        try {
+            pending = jdbcTemplate.queryForList(
+                    "SELECT idcategory FROM category WHERE image IS NOT NULL AND image <> '' AND image_url IS NULL",
+                    Integer.class);
+        } catch (BadSqlGrammarException e) {
+            log.info("Migracija slika kategorija preskočena - stari stupac image ne postoji");
+            return;
+        }
+
+        int migrated = 0;
+        for (Integer categoryId : pending) {
+            // Slike se čitaju jedna po jedna, da se sav TEXT sadržaj ne učitava odjednom
+            String image = jdbcTemplate.queryForObject(
+                    "SELECT image FROM category WHERE idcategory = ?", String.class, categoryId);
+            try {
+                String imageUrl = toImageUrl(image.trim());
+                jdbcTemplate.update("UPDATE category SET image_url = ?, image = NULL WHERE idcategory = ?",
+                        imageUrl, categoryId);
+                eventPublisher.publishEvent(new CategoryChangedEvent(this, categoryId.longValue(), false));
+                migrated++;
+            } catch (IllegalArgumentException | IOException e) {
+                log.warn("Slika kategorije {} nije migrirana: {}", categoryId, e.getMessage());
+            }
+        }
+        log.info("Migracija slika kategorija završena: {} od {} kategorija", migrated, pending.size());
+    }
+
+    private String toImageUrl(String image) throws IOException {
+        // Vrijednost koja je već URL ili putanja samo se prebacuje u novi stupac
+        if (image.startsWith("/") || image.startsWith("http://") || image.startsWith("https://")) {
+            return image;
+        }
+
+        String base64 = image;
+        String mediaType = null;
+        if (image.startsWith("data:")) {
+            int comma = image.indexOf(',');
+            if (comma < 0 || !image.substring(0, comma).endsWith(";base64")) {
+                throw new IllegalArgumentException("nepodržan data URL");
+            }
+            mediaType = image.substring("data:".length(), comma - ";base64".length());
+            base64 = image.substring(comma + 1);
+        }
+
+        // Format rasterskih slika određuje pohrana po sadržaju; SVG se nema po čemu prepoznati
+        // u prvim bajtovima, pa se kao i prije migrira u .svg
+        byte[] content = Base64.getMimeDecoder().decode(base64);
+        String extension = SVG_MEDIA_TYPE.equalsIgnoreCase(mediaType) ? "svg" : null;
+        return imageStorageService.store(new ByteArrayInputStream(content), Long.MAX_VALUE, extension);
+    }
+}
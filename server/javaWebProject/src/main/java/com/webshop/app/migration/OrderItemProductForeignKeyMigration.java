@@ -0,0 +1,38 @@
+package com.webshop.app.migration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Stavke zatvorenih narudžbi mogu pokazivati na proizvod premješten u product_archive, pa stari
+// FK order_items.product_id -> product (koji je ddl-auto stvorio) mora biti uklonjen. Idempotentno.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderItemProductForeignKeyMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            List<String> constraints = jdbcTemplate.queryForList(
+                    "SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order_items' " +
+                    "AND COLUMN_NAME = 'product_id' AND REFERENCED_TABLE_NAME = 'product'",
+                    String.class);
+            for (String constraint : constraints) {
+                jdbcTemplate.execute("ALTER TABLE order_items DROP FOREIGN KEY `" + constraint + "`");
+                log.info("Uklonjen FK {} s order_items.product_id", constraint);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Provjera FK-a order_items.product_id nije uspjela: {}", e.getMessage());
+        }
+    }
+}
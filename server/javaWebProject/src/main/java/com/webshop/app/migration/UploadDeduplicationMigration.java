@@ -0,0 +1,85 @@
+package com.webshop.app.migration;
+
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.service.ImageStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Jednokratna migracija: postojeći uploadi s UUID/timestamp prefiksom prebacuju se u sadržajno
+// adresiranu pohranu. Identične kopije završavaju u jednom blobu, reference u bazi se preusmjeravaju,
+// a stara datoteka se briše tek nakon toga. Pokreće se s app.migrations.upload-dedup=true.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.migrations.upload-dedup", havingValue = "true")
+public class UploadDeduplicationMigration implements ApplicationRunner {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]{1,5}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStorageService imageStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.image.upload-dir}")
+    private String uploadDir;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(Paths.get(uploadDir))) {
+            files = listing.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith("."))
+                    .filter(file -> !CONTENT_ADDRESSED.matcher(file.getFileName().toString()).matches())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Deduplikacija uploada preskočena - direktorij {} nije čitljiv: {}", uploadDir, e.getMessage());
+            return;
+        }
+
+        int migrated = 0;
+        boolean productsChanged = false;
+        for (Path file : files) {
+            String oldUrl = "/" + file.getFileName();
+            try {
+                String newUrl;
+                try (InputStream input = Files.newInputStream(file)) {
+                    newUrl = imageStorageService.store(input, Long.MAX_VALUE);
+                }
+
+                List<Integer> categoryIds = jdbcTemplate.queryForList(
+                        "SELECT idcategory FROM category WHERE image_url = ?", Integer.class, oldUrl);
+                productsChanged |= jdbcTemplate.update("UPDATE product SET image_url = ? WHERE image_url = ?", newUrl, oldUrl) > 0;
+                jdbcTemplate.update("UPDATE product_archive SET image_url = ? WHERE image_url = ?", newUrl, oldUrl);
+                jdbcTemplate.update("UPDATE category SET image_url = ? WHERE image_url = ?", newUrl, oldUrl);
+                categoryIds.forEach(id -> eventPublisher.publishEvent(new CategoryChangedEvent(this, id.longValue(), false)));
+
+                Files.delete(file);
+                migrated++;
+            } catch (IllegalArgumentException | IOException e) {
+                log.warn("Upload {} nije migriran: {}", file.getFileName(), e.getMessage());
+            }
+        }
+
+        if (productsChanged) {
+            eventPublisher.publishEvent(new ProductsBulkChangedEvent(this, null));
+        }
+        log.info("Deduplikacija uploada završena: {} od {} datoteka", migrated, files.size());
+    }
+}
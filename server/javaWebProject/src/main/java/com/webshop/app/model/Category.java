@@ -3,8 +3,6 @@ package com.webshop.app.model;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.util.List;
-
 @Entity
 @Data
 @Getter
@@ -23,6 +21,7 @@ public class Category {
     @Column(name = "Name", nullable = false, length = 255)
     private String name;
 
-    @Column(name = "Image", columnDefinition = "TEXT")
-    private String image;
+    // Slika je datoteka u upload direktoriju; u retku se čuva samo URL
+    @Column(name = "ImageUrl", length = 512)
+    private String imageUrl;
 }
@@ -3,6 +3,8 @@ package com.webshop.app.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
 
 import java.math.BigDecimal;
 
@@ -24,10 +26,15 @@ public class OrderItem {
     @JsonIgnore
     private Order order;
 
+    // Bez FK ograničenja: proizvod iz zatvorene narudžbe može biti premješten u ProductArchive
     @ManyToOne
-    @JoinColumn(name = "product_id")
+    @JoinColumn(name = "product_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @NotFound(action = NotFoundAction.IGNORE)
     private Product product;
 
+    @Column(name = "product_id", insertable = false, updatable = false)
+    private Long productId;
+
     private Integer quantity;
 
     @ManyToOne
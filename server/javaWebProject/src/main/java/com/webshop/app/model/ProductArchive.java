@@ -0,0 +1,36 @@
+package com.webshop.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Logički obrisani proizvodi premješteni iz tablice Product; ID ostaje isti kao u Product
+@Entity
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "ProductArchive")
+public class ProductArchive {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private BigDecimal price;
+
+    private String imageUrl;
+
+    private Integer stock;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    private LocalDateTime archivedAt;
+}
@@ -9,6 +9,8 @@ public interface ApplicationUserRepository extends JpaRepository<ApplicationUser
 
     Optional<ApplicationUser> findByEmail(String email);
 
+    boolean existsByEmail(String email);
+
 
 
 }
@@ -1,8 +1,22 @@
 package com.webshop.app.repository;
 
+import com.webshop.app.dto.CategoryDTO;
+import com.webshop.app.dto.CategorySummaryDTO;
 import com.webshop.app.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
 
+    @Query("SELECT new com.webshop.app.dto.CategoryDTO(CAST(c.id AS Long), c.name, c.imageUrl) FROM Category c ORDER BY c.id")
+    List<CategoryDTO> findCategoryViews();
+
+    // Sve kategorije s brojem aktivnih i ukupnih proizvoda u jednom grupiranom upitu
+    @Query("SELECT new com.webshop.app.dto.CategorySummaryDTO(CAST(c.id AS Long), c.name, " +
+            "SUM(CASE WHEN p.id IS NOT NULL AND p.deleted = false THEN 1L ELSE 0L END), COUNT(p.id)) " +
+            "FROM Category c LEFT JOIN Product p ON p.category = c " +
+            "GROUP BY c.id, c.name ORDER BY c.id")
+    List<CategorySummaryDTO> findCategorySummaries();
 }
@@ -1,12 +1,62 @@
 package com.webshop.app.repository;
 
+import com.webshop.app.dto.OrderDTO;
+import com.webshop.app.dto.OrderItemRowDTO;
+import com.webshop.app.dto.ReservationRowDTO;
 import com.webshop.app.model.ApplicationUser;
 import com.webshop.app.model.Order;
+import com.webshop.app.model.OrderStatus;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByUser(ApplicationUser user);
-}
\ No newline at end of file
+
+    // Potvrda narudžbe: stavke, proizvodi i kategorije u jednom upitu umjesto učitavanja po stavci
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product " +
+            "LEFT JOIN FETCH i.category WHERE o.id = :orderId")
+    Optional<Order> findWithItemsById(@Param("orderId") Long orderId);
+
+    // Prijelaz statusa samo iz očekivanog stanja; 0 znači da je narudžbu u međuvremenu potvrdila ili otkazala
+    // druga dretva. UPDATE drži zaključan redak do kraja transakcije, pa istodobni prijelaz čeka njen ishod.
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status WHERE o.id = :orderId AND o.status = :expected")
+    int updateStatusIfCurrent(@Param("orderId") Long orderId, @Param("expected") OrderStatus expected,
+                              @Param("status") OrderStatus status);
+
+    String ORDER_DTO_SELECT = "SELECT new com.webshop.app.dto.OrderDTO(" +
+            "o.id, u.id, u.firstName, u.lastName, u.email, o.totalPrice, o.shippingAddress, " +
+            "o.paymentMethod, o.orderDate, o.status) " +
+            "FROM Order o LEFT JOIN o.user u ";
+
+    // Projekcije za listanje narudžbi - korisnik (i njegov EAGER loginHistory) se ne učitava kao entitet
+    @Query(ORDER_DTO_SELECT + "ORDER BY o.id")
+    List<OrderDTO> findAllOrderViews();
+
+    @Query(ORDER_DTO_SELECT + "WHERE u.email = :email ORDER BY o.id")
+    List<OrderDTO> findOrderViewsByUserEmail(@Param("email") String email);
+
+    @Query(ORDER_DTO_SELECT + "WHERE o.id = :orderId")
+    List<OrderDTO> findOrderViewById(@Param("orderId") Long orderId);
+
+    // Stavke narudžbi koje čekaju plaćanje - iz njih se nakon restarta obnavljaju rezervacije zalihe
+    @Query("SELECT new com.webshop.app.dto.ReservationRowDTO(o.id, o.orderDate, oi.productId, oi.quantity) " +
+            "FROM OrderItem oi JOIN oi.order o WHERE o.status = :status")
+    List<ReservationRowDTO> findReservationRows(@Param("status") OrderStatus status);
+
+    // Arhivirani proizvodi iz starih narudžbi razrješavaju se iz ProductArchive
+    @Query("SELECT new com.webshop.app.dto.OrderItemRowDTO(oi.order.id, oi.productId, " +
+            "COALESCE(p.name, a.name), COALESCE(p.price, a.price), oi.quantity) " +
+            "FROM OrderItem oi LEFT JOIN oi.product p LEFT JOIN ProductArchive a ON a.id = oi.productId " +
+            "WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemRowDTO> findItemRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
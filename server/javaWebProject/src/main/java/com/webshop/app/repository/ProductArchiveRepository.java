@@ -0,0 +1,16 @@
+package com.webshop.app.repository;
+
+import com.webshop.app.dto.ArchivedProductDTO;
+import com.webshop.app.model.ProductArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ProductArchiveRepository extends JpaRepository<ProductArchive, Long> {
+
+    @Query("SELECT new com.webshop.app.dto.ArchivedProductDTO(a.id, a.name, a.price, a.categoryId, a.archivedAt) " +
+            "FROM ProductArchive a ORDER BY a.archivedAt DESC, a.id DESC")
+    List<ArchivedProductDTO> findArchivedViews(Pageable pageable);
+}
@@ -1,12 +1,22 @@
 package com.webshop.app.repository;
 
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.model.OrderStatus;
 import com.webshop.app.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Integer> {
 
@@ -18,4 +28,67 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
 
         @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId")
         long countProductsInCategory(@Param("categoryId") Long categoryId);
+
+        // Logički obrisani proizvodi na koje se ne poziva nijedna otvorena narudžba - kandidati za arhivu
+        @Query("SELECT p.id FROM Product p WHERE p.deleted = true AND NOT EXISTS (" +
+                "SELECT 1 FROM OrderItem oi WHERE oi.productId = p.id AND oi.order.status IN :openStatuses) " +
+                "ORDER BY p.id")
+        List<Long> findArchivableProductIds(@Param("openStatuses") Collection<OrderStatus> openStatuses,
+                                            Pageable pageable);
+
+        // Checkout: svi proizvodi iz košarice s kategorijama u jednom IN upitu
+        @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+        List<Product> findWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+        @Query("SELECT p.id FROM Product p WHERE p.imageUrl IN :imageUrls")
+        List<Long> findIdsByImageUrlIn(@Param("imageUrls") Collection<String> imageUrls);
+
+        String PRODUCT_DTO_SELECT = "SELECT new com.webshop.app.dto.ProductDTO(" +
+                "p.id, p.name, p.description, p.price, p.imageUrl, p.stock, c.id, c.name, p.deleted) " +
+                "FROM Product p LEFT JOIN p.category c ";
+
+        // Projekcije - čitanje izravno u DTO, bez učitavanja i dirty-checkinga entiteta
+        @Query(PRODUCT_DTO_SELECT + "WHERE p.id = :id")
+        Optional<ProductDTO> findProductViewById(@Param("id") Long id);
+
+        @Query(PRODUCT_DTO_SELECT + "WHERE p.id IN :ids")
+        List<ProductDTO> findProductViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+        @Query(PRODUCT_DTO_SELECT + "WHERE p.deleted = false")
+        List<ProductDTO> findProductViews(Sort sort);
+
+        // Svi proizvodi (i obrisani) po ID-u; MySQL driver uz fetch size MIN_VALUE vraća red po red
+        @Query(PRODUCT_DTO_SELECT + "ORDER BY p.id")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+        Stream<ProductDTO> streamAllProductViews();
+
+        @Query(PRODUCT_DTO_SELECT + "WHERE p.deleted = false AND c.id = :categoryId")
+        List<ProductDTO> findProductViewsByCategoryId(@Param("categoryId") Integer categoryId, Sort sort);
+
+        // Keyset paginacija - stranica se nastavlja iza zadnjeg (price, id) para, bez OFFSET-a
+        @Query(PRODUCT_DTO_SELECT + "WHERE p.deleted = false " +
+                "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+                "AND (:lastId IS NULL OR p.id > :lastId) " +
+                "ORDER BY p.id ASC")
+        List<ProductDTO> findPageAfterId(@Param("categoryId") Integer categoryId,
+                                         @Param("lastId") Long lastId,
+                                         Pageable pageable);
+
+        @Query(PRODUCT_DTO_SELECT + "WHERE p.deleted = false " +
+                "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+                "AND (:lastPrice IS NULL OR p.price > :lastPrice OR (p.price = :lastPrice AND p.id > :lastId)) " +
+                "ORDER BY p.price ASC, p.id ASC")
+        List<ProductDTO> findPageByPriceAscAfter(@Param("categoryId") Integer categoryId,
+                                                 @Param("lastPrice") BigDecimal lastPrice,
+                                                 @Param("lastId") Long lastId,
+                                                 Pageable pageable);
+
+        @Query(PRODUCT_DTO_SELECT + "WHERE p.deleted = false " +
+                "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+                "AND (:lastPrice IS NULL OR p.price < :lastPrice OR (p.price = :lastPrice AND p.id < :lastId)) " +
+                "ORDER BY p.price DESC, p.id DESC")
+        List<ProductDTO> findPageByPriceDescAfter(@Param("categoryId") Integer categoryId,
+                                                  @Param("lastPrice") BigDecimal lastPrice,
+                                                  @Param("lastId") Long lastId,
+                                                  Pageable pageable);
 }
@@ -7,9 +7,10 @@ import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface CartService {
 
     BigDecimal getTotalAmount(List<CartItemDTO> cartItems);
-    ResponseEntity<?> processCheckout(CheckoutRequestDTO checkoutRequest, ApplicationUser user);
+    CompletableFuture<ResponseEntity<?>> processCheckout(CheckoutRequestDTO checkoutRequest, ApplicationUser user);
 }
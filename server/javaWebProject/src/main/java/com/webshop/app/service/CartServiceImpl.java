@@ -6,23 +6,35 @@ import com.paypal.base.rest.PayPalRESTException;
 import com.webshop.app.dto.CartDTO;
 import com.webshop.app.dto.CartItemDTO;
 import com.webshop.app.dto.CheckoutRequestDTO;
+import com.webshop.app.exception.InsufficientStockException;
 import com.webshop.app.model.ApplicationUser;
 import com.webshop.app.model.PaymentMethod;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
 
     private final OrderService orderService;
-    private final ProductService productService;
-    private final PaypalService payPalService;
+    private final PaypalClient paypalClient;
+
+    @Value("${app.paypal.timeout-ms:10000}")
+    private long paypalTimeoutMs;
 
     public BigDecimal getTotalAmount(List<CartItemDTO> cartItems) {
         return cartItems.stream()
@@ -31,51 +43,42 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
-    public ResponseEntity<?> processCheckout(CheckoutRequestDTO checkoutRequest, ApplicationUser user) {
+    public CompletableFuture<ResponseEntity<?>> processCheckout(CheckoutRequestDTO checkoutRequest,
+                                                                ApplicationUser user) {
         if (checkoutRequest.getCartItems() == null || checkoutRequest.getCartItems().isEmpty()) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Cart is empty"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Cart is empty")));
         }
 
         List<CartItemDTO> cartItems = checkoutRequest.getCartItems();
-
-        // Validate products and stock
-        for (CartItemDTO item : cartItems) {
-            var product = productService.getProductById(item.getProductId());
-            if (product == null) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "Product not found: " + item.getProductId()));
-            }
-            if (product.getStock() < item.getQuantity()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "Insufficient stock for: " + product.getName()));
-            }
-        }
-
         BigDecimal totalPrice = getTotalAmount(cartItems);
         CartDTO cartDTO = new CartDTO(cartItems, totalPrice);
 
-        // Process by payment method
-        if (checkoutRequest.getPaymentMethod().equalsIgnoreCase("CASH")) {
-            return processCashPayment(cartDTO, user, checkoutRequest);
-        }
-        else if (checkoutRequest.getPaymentMethod().equalsIgnoreCase("PAYPAL")) {
-            return processPayPalPayment(cartDTO, user, checkoutRequest, totalPrice);
+        // Proizvodi i zaliha provjeravaju se pri kreiranju narudžbe, nad jednom učitanim skupom proizvoda
+        try {
+            if (checkoutRequest.getPaymentMethod().equalsIgnoreCase("CASH")) {
+                return CompletableFuture.completedFuture(processCashPayment(cartDTO, user, checkoutRequest));
+            }
+            else if (checkoutRequest.getPaymentMethod().equalsIgnoreCase("PAYPAL")) {
+                return processPayPalPayment(cartDTO, user, checkoutRequest, totalPrice);
+            }
+        } catch (IllegalArgumentException | InsufficientStockException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage())));
         }
 
-        return ResponseEntity.badRequest()
-                .body(Map.of("error", "Invalid payment method"));
+        return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(Map.of("error", "Invalid payment method")));
     }
 
     private ResponseEntity<?> processCashPayment(CartDTO cartDTO, ApplicationUser user,
                                                  CheckoutRequestDTO checkoutRequest) {
-        Long orderId = orderService.createPendingOrder(
+        Long orderId = orderService.createConfirmedOrder(
                 cartDTO,
                 user,
                 PaymentMethod.CASH_ON_DELIVERY,
                 checkoutRequest.getShippingAddress()
         );
-        orderService.confirmOrder(orderId);
 
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -84,47 +87,83 @@ public class CartServiceImpl implements CartService {
         ));
     }
 
-    private ResponseEntity<?> processPayPalPayment(CartDTO cartDTO, ApplicationUser user,
-                                                   CheckoutRequestDTO checkoutRequest,
-                                                   BigDecimal totalPrice) {
+    // Narudžba se sprema na dretvi zahtjeva, a PayPal poziv ide na PaypalClient dretve -
+    // Tomcat dretva se oslobađa dok PayPal ne odgovori ili ne istekne vrijeme.
+    // Ishod (paymentId ili otkazivanje) zapisuje se na completion dretvama PaypalClient-a.
+    private CompletableFuture<ResponseEntity<?>> processPayPalPayment(CartDTO cartDTO, ApplicationUser user,
+                                                                      CheckoutRequestDTO checkoutRequest,
+                                                                      BigDecimal totalPrice) {
+        Long orderId = orderService.createPendingOrder(
+                cartDTO,
+                user,
+                PaymentMethod.PAYPAL,
+                checkoutRequest.getShippingAddress()
+        );
+
+        String cancelUrl = "http://localhost:5173/payment/cancel?orderId=" + orderId;
+        String successUrl = "http://localhost:5173/payment/success?orderId=" + orderId;
+
+        return paypalClient.createPayment(
+                        totalPrice.doubleValue(),
+                        "EUR",
+                        "paypal",
+                        "sale",
+                        "Order " + orderId,
+                        cancelUrl,
+                        successUrl
+                )
+                .orTimeout(paypalTimeoutMs, TimeUnit.MILLISECONDS)
+                .handleAsync((payment, error) -> {
+                    if (error == null) {
+                        try {
+                            return paymentCreated(orderId, payment);
+                        } catch (RuntimeException e) {
+                            return paymentFailed(orderId, PaypalClient.unwrap(e));
+                        }
+                    }
+                    return paymentFailed(orderId, PaypalClient.unwrap(error));
+                }, paypalClient.completionExecutor());
+    }
+
+    private ResponseEntity<?> paymentCreated(Long orderId, Payment payment) {
+        orderService.updateOrderPaymentId(orderId, payment.getId());
+
+        String approvalUrl = payment.getLinks().stream()
+                .filter(link -> "approval_url".equals(link.getRel()))
+                .findFirst()
+                .map(Links::getHref)
+                .orElseThrow(() -> new CompletionException(
+                        new PayPalRESTException("No approval URL found")));
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "approvalUrl", approvalUrl,
+                "orderId", orderId
+        ));
+    }
+
+    // Korisnik bez approval URL-a ne može platiti, pa se narudžba otkazuje i rezervacija oslobađa
+    private ResponseEntity<?> paymentFailed(Long orderId, Throwable error) {
         try {
-            Long orderId = orderService.createPendingOrder(
-                    cartDTO,
-                    user,
-                    PaymentMethod.PAYPAL,
-                    checkoutRequest.getShippingAddress()
-            );
-
-            String cancelUrl = "http://localhost:5173/payment/cancel?orderId=" + orderId;
-            String successUrl = "http://localhost:5173/payment/success?orderId=" + orderId;
-
-            Payment payment = payPalService.createPayment(
-                    totalPrice.doubleValue(),
-                    "EUR",
-                    "paypal",
-                    "sale",
-                    "Order " + orderId,
-                    cancelUrl,
-                    successUrl
-            );
-
-            orderService.updateOrderPaymentId(orderId, payment.getId());
-
-            String approvalUrl = payment.getLinks().stream()
-                    .filter(link -> "approval_url".equals(link.getRel()))
-                    .findFirst()
-                    .map(Links::getHref)
-                    .orElseThrow(() -> new PayPalRESTException("No approval URL found"));
-
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "approvalUrl", approvalUrl,
-                    "orderId", orderId
-            ));
-        } catch (PayPalRESTException e) {
+            orderService.cancelOrder(orderId, "Greška pri kreiranju PayPal plaćanja: " + error.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Failed to cancel order {} after PayPal error: {}", orderId, e.getMessage());
+        }
+
+        if (error instanceof PayPalRESTException) {
             return ResponseEntity.badRequest()
-                    .body(Map.of("error", "PayPal payment error: " + e.getMessage()));
+                    .body(Map.of("error", "PayPal payment error: " + error.getMessage()));
+        }
+        if (error instanceof TimeoutException) {
+            log.warn("PayPal createPayment timed out for order {}", orderId);
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Map.of("error", "PayPal did not respond in time, please try again"));
+        }
+        if (error instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "PayPal is busy, please try again"));
         }
+        throw new CompletionException(error);
     }
 
 
@@ -0,0 +1,562 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.CatalogStoreStatsDTO;
+import com.webshop.app.dto.CategoryDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.dto.ProductPageDTO;
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.repository.CategoryRepository;
+import com.webshop.app.repository.ProductRepository;
+import com.webshop.app.utils.ProductCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Kolumnarni katalog u memoriji: svaki atribut proizvoda je primitivni niz (cijena u centima,
+// kodovi kategorija i URL-ova slika iz rječnika, tekst kao UTF-8), a ProductDTO se gradi tek
+// za stavke koje se vraćaju. Redovi su poredani po ID-u, a priceOrder drži aktivne retke
+// poredane po (cijena, ID), pa listinzi i keyset stranice ne trebaju bazu.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogColumnStore {
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns;
+
+    // Promjene koje stignu dok se novi stupci pune: upit ih možda nije vidio, pa se
+    // primjenjuju i na nove stupce prije zamjene. Sve se čuva pod write lockom.
+    private int rebuildsInProgress;
+    private List<ProductDTO> pendingChanges;
+    private List<CategoryDTO> pendingCategories;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress++ == 0) {
+                pendingChanges = new ArrayList<>();
+                pendingCategories = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Novi stupci se pune izvan locka; čitanja do zamjene koriste postojeće
+        Columns fresh = new Columns();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ProductDTO> products = productRepository.streamAllProductViews()) {
+                    products.forEach(fresh::append);
+                }
+            });
+            fresh.sortPriceOrder();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                finishRebuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(fresh::upsert);
+            if (pendingCategories != null) {
+                pendingCategories.forEach(category -> fresh.renameCategory(category.getId(), category.getName()));
+            }
+            finishRebuild();
+            columns = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Kolumnarni katalog učitan: {} redaka, {} aktivnih", fresh.size, fresh.liveCount);
+    }
+
+    private void finishRebuild() {
+        if (--rebuildsInProgress == 0) {
+            pendingChanges = null;
+            pendingCategories = null;
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return columns != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        applyChanges(List.of(event.getProduct()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        if (event.getProductIds() == null) {
+            rebuild();
+            return;
+        }
+        applyChanges(productRepository.findProductViewsByIdIn(event.getProductIds()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.isDeleted()) {
+            return;
+        }
+        List<CategoryDTO> categories = categoryRepository.findCategoryViews();
+
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress > 0) {
+                pendingCategories = categories;
+            }
+            if (columns != null) {
+                categories.forEach(category -> columns.renameCategory(category.getId(), category.getName()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Aktivni proizvodi kao findByDeletedFalse, poredani po ID-u ili cijeni
+    public List<ProductDTO> list(Integer categoryId, String mode) {
+        lock.readLock().lock();
+        try {
+            List<ProductDTO> result = new ArrayList<>();
+            columns.scan(categoryId, mode, null, Integer.MAX_VALUE, row -> result.add(columns.toDTO(row)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ista semantika kao keyset upiti u ProductRepository
+    public ProductPageDTO page(Integer categoryId, String mode, ProductCursor after, int pageSize) {
+        lock.readLock().lock();
+        try {
+            List<ProductDTO> items = new ArrayList<>(pageSize + 1);
+            columns.scan(categoryId, mode, after, pageSize + 1, row -> items.add(columns.toDTO(row)));
+
+            boolean hasMore = items.size() > pageSize;
+            if (hasMore) {
+                items.remove(pageSize);
+            }
+            String nextCursor = null;
+            if (hasMore) {
+                ProductDTO last = items.get(items.size() - 1);
+                nextCursor = new ProductCursor(mode, last.getPrice(), last.getId()).encode();
+            }
+            return new ProductPageDTO(items, nextCursor, pageSize, hasMore);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public CatalogStoreStatsDTO getStats() {
+        lock.readLock().lock();
+        try {
+            return columns != null ? columns.footprint() : new CatalogStoreStatsDTO();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyChanges(List<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress > 0) {
+                pendingChanges.addAll(products);
+            }
+            if (columns != null) {
+                products.forEach(columns::upsert);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long toMinorUnits(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long align8(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static long stringBytes(int length) {
+        // String (24 B) + byte[] (16 B zaglavlje + sadržaj)
+        return 24 + align8(16L + length);
+    }
+
+    private interface RowConsumer {
+        void accept(int row);
+    }
+
+    private static final class Columns {
+
+        private static final int NO_STOCK = Integer.MIN_VALUE;
+        private static final int NO_CODE = -1;
+
+        private int size;
+        private long[] ids = new long[1024];
+        private long[] prices = new long[1024];
+        private int[] stocks = new int[1024];
+        private int[] categoryCodes = new int[1024];
+        private int[] imageCodes = new int[1024];
+        private byte[][] names = new byte[1024][];
+        private byte[][] descriptions = new byte[1024][];
+        private final BitSet deleted = new BitSet();
+        private final BitSet missingPrice = new BitSet();
+
+        // Aktivni retci poredani po (cijena, ID)
+        private int[] priceOrder = new int[0];
+        private int liveCount;
+
+        private final Map<Long, Integer> categoryCodeById = new HashMap<>();
+        private final List<Long> categoryIds = new ArrayList<>();
+        private final List<String> categoryNames = new ArrayList<>();
+        private final Map<String, Integer> imageCodeByUrl = new HashMap<>();
+        private final List<String> imageUrls = new ArrayList<>();
+
+        private void append(ProductDTO product) {
+            ensureCapacity(size + 1);
+            write(size++, product);
+        }
+
+        private void upsert(ProductDTO product) {
+            int row = Arrays.binarySearch(ids, 0, size, product.getId());
+            if (row >= 0) {
+                if (!deleted.get(row)) {
+                    removeFromPriceOrder(row);
+                }
+            } else {
+                row = -row - 1;
+                insertRow(row);
+            }
+            write(row, product);
+            if (!product.isDeleted()) {
+                insertIntoPriceOrder(row);
+            }
+        }
+
+        // Novi ID je gotovo uvijek najveći pa se dodaje na kraj; manji (npr. vraćen iz arhive)
+        // umeće se na svoje mjesto, a retci iza njega pomiču se za jedan
+        private void insertRow(int row) {
+            ensureCapacity(size + 1);
+            int tail = size - row;
+            if (tail > 0) {
+                System.arraycopy(ids, row, ids, row + 1, tail);
+                System.arraycopy(prices, row, prices, row + 1, tail);
+                System.arraycopy(stocks, row, stocks, row + 1, tail);
+                System.arraycopy(categoryCodes, row, categoryCodes, row + 1, tail);
+                System.arraycopy(imageCodes, row, imageCodes, row + 1, tail);
+                System.arraycopy(names, row, names, row + 1, tail);
+                System.arraycopy(descriptions, row, descriptions, row + 1, tail);
+                shiftBits(deleted, row);
+                shiftBits(missingPrice, row);
+                for (int i = 0; i < liveCount; i++) {
+                    if (priceOrder[i] >= row) {
+                        priceOrder[i]++;
+                    }
+                }
+            }
+            size++;
+        }
+
+        private void shiftBits(BitSet bits, int from) {
+            BitSet tail = bits.get(from, size);
+            bits.clear(from, size + 1);
+            tail.stream().forEach(bit -> bits.set(from + 1 + bit));
+        }
+
+        private void write(int row, ProductDTO product) {
+            ids[row] = product.getId();
+            prices[row] = product.getPrice() != null ? toMinorUnits(product.getPrice()) : 0;
+            missingPrice.set(row, product.getPrice() == null);
+            stocks[row] = product.getStock() != null ? product.getStock() : NO_STOCK;
+            categoryCodes[row] = product.getCategoryId() != null
+                    ? categoryCode(product.getCategoryId(), product.getCategoryName())
+                    : NO_CODE;
+            imageCodes[row] = product.getImageUrl() != null ? imageCode(product.getImageUrl()) : NO_CODE;
+            names[row] = utf8(product.getName());
+            descriptions[row] = utf8(product.getDescription());
+            deleted.set(row, product.isDeleted());
+        }
+
+        private int categoryCode(Long categoryId, String categoryName) {
+            Integer code = categoryCodeById.get(categoryId);
+            if (code == null) {
+                code = categoryIds.size();
+                categoryCodeById.put(categoryId, code);
+                categoryIds.add(categoryId);
+                categoryNames.add(categoryName != null ? categoryName.intern() : null);
+            }
+            return code;
+        }
+
+        private void renameCategory(Long categoryId, String name) {
+            Integer code = categoryCodeById.get(categoryId);
+            if (code != null) {
+                categoryNames.set(code, name != null ? name.intern() : null);
+            }
+        }
+
+        private int imageCode(String imageUrl) {
+            Integer code = imageCodeByUrl.get(imageUrl);
+            if (code == null) {
+                code = imageUrls.size();
+                imageCodeByUrl.put(imageUrl, code);
+                imageUrls.add(imageUrl);
+            }
+            return code;
+        }
+
+        private void scan(Integer categoryId, String mode, ProductCursor after, int limit, RowConsumer consumer) {
+            int categoryCode = NO_CODE;
+            if (categoryId != null) {
+                Integer code = categoryCodeById.get(categoryId.longValue());
+                if (code == null) {
+                    return;
+                }
+                categoryCode = code;
+            }
+
+            int found = 0;
+            switch (mode) {
+                case ProductCursor.MODE_PRICE_ASC -> {
+                    int start = after != null ? upperBound(toMinorUnits(after.getLastPrice()), after.getLastId()) : 0;
+                    for (int i = start; i < liveCount && found < limit; i++) {
+                        if (matches(priceOrder[i], categoryCode)) {
+                            consumer.accept(priceOrder[i]);
+                            found++;
+                        }
+                    }
+                }
+                case ProductCursor.MODE_PRICE_DESC -> {
+                    int start = after != null
+                            ? lowerBound(toMinorUnits(after.getLastPrice()), after.getLastId()) - 1
+                            : liveCount - 1;
+                    for (int i = start; i >= 0 && found < limit; i--) {
+                        if (matches(priceOrder[i], categoryCode)) {
+                            consumer.accept(priceOrder[i]);
+                            found++;
+                        }
+                    }
+                }
+                default -> {
+                    int start = 0;
+                    if (after != null) {
+                        int position = Arrays.binarySearch(ids, 0, size, after.getLastId());
+                        start = position >= 0 ? position + 1 : -position - 1;
+                    }
+                    for (int row = start; row < size && found < limit; row++) {
+                        if (!deleted.get(row) && matches(row, categoryCode)) {
+                            consumer.accept(row);
+                            found++;
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean matches(int row, int categoryCode) {
+            return categoryCode == NO_CODE || categoryCodes[row] == categoryCode;
+        }
+
+        private ProductDTO toDTO(int row) {
+            int category = categoryCodes[row];
+            return new ProductDTO(
+                    ids[row],
+                    text(names[row]),
+                    text(descriptions[row]),
+                    missingPrice.get(row) ? null : BigDecimal.valueOf(prices[row], 2),
+                    imageCodes[row] != NO_CODE ? imageUrls.get(imageCodes[row]) : null,
+                    stocks[row] != NO_STOCK ? stocks[row] : null,
+                    category != NO_CODE ? categoryIds.get(category).intValue() : null,
+                    category != NO_CODE ? categoryNames.get(category) : null,
+                    deleted.get(row)
+            );
+        }
+
+        // Prvi položaj u priceOrder s ključem >= (price, id)
+        private int lowerBound(long price, long id) {
+            int low = 0;
+            int high = liveCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareKey(priceOrder[mid], price, id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Prvi položaj u priceOrder s ključem > (price, id)
+        private int upperBound(long price, long id) {
+            int low = 0;
+            int high = liveCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareKey(priceOrder[mid], price, id) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compareKey(int row, long price, long id) {
+            int result = Long.compare(prices[row], price);
+            return result != 0 ? result : Long.compare(ids[row], id);
+        }
+
+        private void insertIntoPriceOrder(int row) {
+            if (liveCount == priceOrder.length) {
+                priceOrder = Arrays.copyOf(priceOrder, Math.max(16, liveCount * 2));
+            }
+            int position = lowerBound(prices[row], ids[row]);
+            System.arraycopy(priceOrder, position, priceOrder, position + 1, liveCount - position);
+            priceOrder[position] = row;
+            liveCount++;
+        }
+
+        private void removeFromPriceOrder(int row) {
+            int position = lowerBound(prices[row], ids[row]);
+            if (position < liveCount && priceOrder[position] == row) {
+                System.arraycopy(priceOrder, position + 1, priceOrder, position, liveCount - position - 1);
+                liveCount--;
+            }
+        }
+
+        // Retci su već poredani po ID-u, pa stabilno sortiranje po cijeni daje poredak (cijena, ID)
+        private void sortPriceOrder() {
+            int[] live = new int[size - deleted.cardinality()];
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                if (!deleted.get(row)) {
+                    live[count++] = row;
+                }
+            }
+            mergeSortByPrice(live, new int[live.length], 0, live.length);
+            priceOrder = live;
+            liveCount = live.length;
+        }
+
+        private void mergeSortByPrice(int[] rows, int[] buffer, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSortByPrice(rows, buffer, from, mid);
+            mergeSortByPrice(rows, buffer, mid, to);
+            if (prices[rows[mid - 1]] <= prices[rows[mid]]) {
+                return;
+            }
+            System.arraycopy(rows, from, buffer, from, to - from);
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < mid && prices[buffer[left]] <= prices[buffer[right]])) {
+                    rows[i] = buffer[left++];
+                } else {
+                    rows[i] = buffer[right++];
+                }
+            }
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= ids.length) {
+                return;
+            }
+            int capacity = Math.max(required, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+            imageCodes = Arrays.copyOf(imageCodes, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+
+        private CatalogStoreStatsDTO footprint() {
+            int capacity = ids.length;
+            // long[] x2, int[] x3, dvije reference na byte[] po retku (compressed oops) + BitSet-ovi
+            long columnBytes = capacity * (8L + 8L + 4L + 4L + 4L + 4L + 4L)
+                    + deleted.size() / 8 + missingPrice.size() / 8;
+
+            long textBytes = 0;
+            long objectHeapBytes = 0;
+            for (int row = 0; row < size; row++) {
+                int nameLength = names[row] != null ? names[row].length : 0;
+                int descriptionLength = descriptions[row] != null ? descriptions[row].length : 0;
+                textBytes += (names[row] != null ? align8(16L + nameLength) : 0)
+                        + (descriptions[row] != null ? align8(16L + descriptionLength) : 0);
+
+                // Isti proizvod kao ProductDTO: objekt (56 B), Long id, BigDecimal, Integer stock,
+                // Long categoryId (16 + 40 + 16 + 16 B) i zasebni String za svako tekstualno polje
+                int category = categoryCodes[row];
+                int image = imageCodes[row];
+                objectHeapBytes += 56 + 16 + 40 + 16 + 16
+                        + stringBytes(nameLength)
+                        + stringBytes(descriptionLength)
+                        + (image != NO_CODE ? stringBytes(imageUrls.get(image).length()) : 0)
+                        + (category != NO_CODE && categoryNames.get(category) != null
+                                ? stringBytes(categoryNames.get(category).length()) : 0);
+            }
+
+            long dictionaryBytes = 0;
+            for (String url : imageUrls) {
+                // String + zapis u HashMap-i (32 B) + Integer kod (16 B)
+                dictionaryBytes += stringBytes(url.length()) + 48;
+            }
+            for (String name : categoryNames) {
+                dictionaryBytes += (name != null ? stringBytes(name.length()) : 0) + 16 + 48;
+            }
+
+            long priceIndexBytes = 4L * priceOrder.length;
+            long total = columnBytes + textBytes + dictionaryBytes + priceIndexBytes;
+
+            return new CatalogStoreStatsDTO(size, liveCount, categoryIds.size(), imageUrls.size(),
+                    columnBytes, textBytes, dictionaryBytes, priceIndexBytes, total, objectHeapBytes);
+        }
+
+        private static byte[] utf8(String value) {
+            return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+        }
+
+        private static String text(byte[] value) {
+            return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.webshop.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Serijalizirani (UTF-8 JSON) odgovori kataloga po kombinaciji parametara.
+// Snimka vrijedi dok se verzija kataloga ne promijeni; nakon izmjene gradi se ponovno pri prvom zahtjevu.
+@Component
+public class CatalogSnapshotCache {
+
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Snapshot> snapshots;
+
+    public CatalogSnapshotCache(CatalogVersion catalogVersion,
+                                ObjectMapper objectMapper,
+                                @Value("${app.catalog.snapshots.max-entries:256}") int maxEntries) {
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public byte[] get(String key, Supplier<?> loader) {
+        // Verzija se uzima prije učitavanja, pa snimka nikad nije označena novijom verzijom od svojih podataka
+        long version = catalogVersion.current();
+
+        synchronized (snapshots) {
+            Snapshot snapshot = snapshots.get(key);
+            if (snapshot != null && snapshot.version == version) {
+                return snapshot.json;
+            }
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serijalizacija kataloga nije uspjela: " + e.getMessage(), e);
+        }
+
+        synchronized (snapshots) {
+            Snapshot existing = snapshots.get(key);
+            if (existing == null || existing.version < version) {
+                snapshots.put(key, new Snapshot(version, json));
+            }
+        }
+        return json;
+    }
+
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(part).append('|');
+        }
+        return key.toString();
+    }
+
+    private record Snapshot(long version, byte[] json) {
+    }
+}
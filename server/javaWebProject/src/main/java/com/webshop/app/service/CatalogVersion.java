@@ -0,0 +1,47 @@
+package com.webshop.app.service;
+
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Monotona verzija kataloga. Povećava se tek nakon što su svi pogledi u memoriji (cache, indeksi)
+// obradili promjenu, pa ETag s novom verzijom nikad ne označava stare podatke.
+@Component
+public class CatalogVersion {
+
+    // Oznaka pokretanja - ETag-ovi iz prethodnog procesa ne smiju se poklopiti s novima
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong(1);
+
+    public long current() {
+        return version.get();
+    }
+
+    public String etag() {
+        return "\"catalog-" + epoch + "-" + version.get() + "\"";
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,91 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.CategorySummaryDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Broj aktivnih i ukupnih proizvoda po kategoriji. Puni se jednim grupiranim upitom,
+// a nakon toga se održava inkrementalno iz događaja o promjenama proizvoda.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryProductCounts {
+
+    private final CategoryRepository categoryRepository;
+
+    private final Map<Long, CategorySummaryDTO> summaries = new TreeMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<CategorySummaryDTO> rows = categoryRepository.findCategorySummaries();
+
+        synchronized (this) {
+            summaries.clear();
+            rows.forEach(row -> summaries.put(row.getId(), row));
+        }
+        log.info("Brojači proizvoda po kategorijama učitani: {} kategorija", rows.size());
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        // Staro stanje se oduzima, novo dodaje - pokriva premještanje, brisanje i vraćanje proizvoda
+        if (event.getPreviousDeleted() != null) {
+            adjust(event.getPreviousCategoryId(), event.getPreviousDeleted(), -1);
+        }
+        ProductDTO product = event.getProduct();
+        adjust(product.getCategoryId(), product.isDeleted(), 1);
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        reload();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        reload();
+    }
+
+    public synchronized List<CategorySummaryDTO> getSummaries() {
+        return summaries.values().stream()
+                .map(s -> new CategorySummaryDTO(s.getId(), s.getName(), s.getLiveProducts(), s.getTotalProducts()))
+                .toList();
+    }
+
+    // Uključuje i logički obrisane proizvode, jer i oni referenciraju kategoriju
+    public synchronized long totalProducts(Long categoryId) {
+        CategorySummaryDTO summary = summaries.get(categoryId);
+        return summary != null ? summary.getTotalProducts() : 0;
+    }
+
+    private void adjust(Long categoryId, boolean deleted, int delta) {
+        if (categoryId == null) {
+            return;
+        }
+        CategorySummaryDTO summary = summaries.get(categoryId);
+        if (summary == null) {
+            return;
+        }
+        summary.setTotalProducts(summary.getTotalProducts() + delta);
+        if (!deleted) {
+            summary.setLiveProducts(summary.getLiveProducts() + delta);
+        }
+    }
+}
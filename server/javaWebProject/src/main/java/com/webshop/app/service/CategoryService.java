@@ -1,15 +1,20 @@
 package com.webshop.app.service;
 
 import com.webshop.app.dto.CategoryDTO;
+import com.webshop.app.dto.CategorySummaryDTO;
 import com.webshop.app.model.Category;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 public interface CategoryService {
 
     List<CategoryDTO> getAllCategories();
+    List<CategorySummaryDTO> getCategorySummaries();
     CategoryDTO convertCategoryToDTO(Category category);
     CategoryDTO getCategoryById(Integer id);
     CategoryDTO saveCategory(CategoryDTO categoryDTO);
+    CategoryDTO updateCategoryImage(Integer id, MultipartFile imageFile) throws IOException;
     void deleteById(Integer id);
 }
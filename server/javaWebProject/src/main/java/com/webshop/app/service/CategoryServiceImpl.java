@@ -1,29 +1,37 @@
 package com.webshop.app.service;
 
 import com.webshop.app.dto.CategoryDTO;
+import com.webshop.app.dto.CategorySummaryDTO;
+import com.webshop.app.event.CategoryChangedEvent;
 import com.webshop.app.exception.ResourceNotFoundException;
+import com.webshop.app.mapper.CategoryMapper;
 import com.webshop.app.model.Category;
 import com.webshop.app.repository.CategoryRepository;
-import com.webshop.app.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.modelmapper.ModelMapper;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
-    private final ProductRepository productRepository;
-
+    private final CategoryMapper categoryMapper;
+    private final CategoryProductCounts categoryProductCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageStorageService imageStorageService;
 
     public List<CategoryDTO> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
-                .toList();
+        return categoryRepository.findCategoryViews();
+    }
+
+    public List<CategorySummaryDTO> getCategorySummaries() {
+        return categoryProductCounts.getSummaries();
     }
 
     public CategoryDTO getCategoryById(Integer id) {
@@ -34,7 +42,35 @@ public class CategoryServiceImpl implements CategoryService {
 
     public CategoryDTO saveCategory(CategoryDTO categoryDTO) {
         Category category = convertDTOToCategory(categoryDTO);
+        // Slika se mijenja zasebnim uploadom, pa JSON bez imageUrl-a ne briše postojeću
+        if (category.getImageUrl() == null && categoryDTO.getId() != null) {
+            categoryRepository.findById(categoryDTO.getId().intValue())
+                    .ifPresent(existing -> category.setImageUrl(existing.getImageUrl()));
+        }
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(this, (long) savedCategory.getId(), false));
+        return convertCategoryToDTO(savedCategory);
+    }
+
+    public CategoryDTO updateCategoryImage(Integer id, MultipartFile imageFile) throws IOException {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Kategorija s ID-om " + id + " nije pronađena."));
+
+        String previousImageUrl = category.getImageUrl();
+        String imageUrl = imageStorageService.store(imageFile);
+        category.setImageUrl(imageUrl);
+        Category savedCategory;
+        try {
+            savedCategory = categoryRepository.save(category);
+        } catch (RuntimeException e) {
+            imageStorageService.discard(imageUrl);
+            throw e;
+        }
+
+        eventPublisher.publishEvent(new CategoryChangedEvent(this, (long) savedCategory.getId(), false));
+        if (!Objects.equals(previousImageUrl, savedCategory.getImageUrl())) {
+            imageStorageService.release(previousImageUrl);
+        }
         return convertCategoryToDTO(savedCategory);
     }
 
@@ -45,19 +81,19 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 
-        long productCount = productRepository.countProductsInCategory(Long.valueOf(id));
-        if (productCount > 0) {
+        if (categoryProductCounts.totalProducts(Long.valueOf(id)) > 0) {
             throw new IllegalStateException("Ne možete obrisati kategoriju jer sadrži proizvode!");
         }
 
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(this, Long.valueOf(id), true));
     }
 
     public CategoryDTO convertCategoryToDTO(Category category) {
-        return modelMapper.map(category, CategoryDTO.class);
+        return categoryMapper.toDTO(category);
     }
 
     public Category convertDTOToCategory(CategoryDTO categoryDTO) {
-        return modelMapper.map(categoryDTO, Category.class);
+        return categoryMapper.toEntity(categoryDTO);
     }
 }
@@ -0,0 +1,99 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.CheckoutRequestDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+@Component
+public class CheckoutIdempotency {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public CheckoutIdempotency(@Value("${app.checkout.idempotency.max-entries:10000}") int maxEntries,
+                               @Value("${app.checkout.idempotency.ttl-minutes:60}") long ttlMinutes) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > CheckoutIdempotency.this.maxEntries;
+            }
+        };
+    }
+
+    // Prvi zahtjev s ključem izvršava checkout; istovremeni duplikati čekaju njegov rezultat,
+    // a kasniji ponovljeni zahtjevi dobivaju spremljeni odgovor bez pristupa bazi i PayPalu
+    public CompletableFuture<ResponseEntity<?>> execute(String userName, String key, CheckoutRequestDTO request,
+                                                        Supplier<CompletableFuture<ResponseEntity<?>>> checkout) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid " + HEADER + " header")));
+        }
+
+        String entryKey = userName + '|' + key;
+        Entry entry;
+        synchronized (this) {
+            Entry existing = entries.get(entryKey);
+            if (existing != null && existing.expiresAt > System.currentTimeMillis()) {
+                if (!existing.request.equals(request)) {
+                    return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                            .body(Map.of("error", HEADER + " was already used for a different checkout request")));
+                }
+                return existing.response.thenApply(CheckoutIdempotency::replayed);
+            }
+            entry = new Entry(request, new CompletableFuture<>(), System.currentTimeMillis() + ttlMillis);
+            entries.put(entryKey, entry);
+        }
+
+        CompletableFuture<ResponseEntity<?>> result;
+        try {
+            result = checkout.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, error) -> {
+            if (error == null) {
+                entry.response.complete(value);
+                return;
+            }
+            // Neočekivana greška se ne pamti - ponovljeni zahtjev smije pokušati ispočetka
+            synchronized (this) {
+                entries.remove(entryKey, entry);
+            }
+            entry.response.completeExceptionally(error);
+        });
+        return entry.response.copy();
+    }
+
+    private static ResponseEntity<?> replayed(ResponseEntity<?> original) {
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    private static final class Entry {
+        private final CheckoutRequestDTO request;
+        private final CompletableFuture<ResponseEntity<?>> response;
+        private final long expiresAt;
+
+        private Entry(CheckoutRequestDTO request, CompletableFuture<ResponseEntity<?>> response, long expiresAt) {
+            this.request = request;
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
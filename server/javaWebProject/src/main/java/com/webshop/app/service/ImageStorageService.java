@@ -0,0 +1,19 @@
+package com.webshop.app.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+public interface ImageStorageService {
+
+    String store(MultipartFile file) throws IOException;
+    String store(InputStream input, long maxBytes) throws IOException;
+    String store(InputStream input, long maxBytes, String extension) throws IOException;
+    long referenceCount(String imageUrl);
+    boolean release(String imageUrl);
+    void discard(String imageUrl);
+    boolean moveToTrash(Path file, Path target, Instant unusedBefore) throws IOException;
+}
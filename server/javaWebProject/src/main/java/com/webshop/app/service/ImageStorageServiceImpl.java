@@ -0,0 +1,220 @@
+package com.webshop.app.service;
+
+import com.webshop.app.exception.FileSizeExceededException;
+import com.webshop.app.utils.ImageTypes;
+import com.webshop.app.utils.ImageVariants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Sadržajno adresirana pohrana slika: datoteka se sprema jednom, pod SHA-256 sažetkom sadržaja.
+// Isti upload dobiva isti URL, a URL se nikad ne prepisuje drugim sadržajem (smije se trajno cacheati).
+@Slf4j
+@Service
+public class ImageStorageServiceImpl implements ImageStorageService {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]{1,5}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path uploadPath;
+    private final Duration releaseGracePeriod;
+    private final long maxUploadBytes;
+
+    // Blobovi koje je stvorio upload čiji redak u bazi još nije potvrđen (vidi discard)
+    private final Map<String, Instant> unconfirmed = new HashMap<>();
+
+    public ImageStorageServiceImpl(JdbcTemplate jdbcTemplate,
+                                   @Value("${app.image.upload-dir}") String uploadDir,
+                                   @Value("${app.image.release-grace-minutes:10}") long releaseGraceMinutes,
+                                   @Value("${app.image.max-upload-bytes:2097152}") long maxUploadBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.uploadPath = Paths.get(uploadDir);
+        this.releaseGracePeriod = Duration.ofMinutes(releaseGraceMinutes);
+        this.maxUploadBytes = maxUploadBytes;
+    }
+
+    @Override
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return store(input, maxUploadBytes);
+        }
+    }
+
+    // Jedan prolaz kroz ulaz: prvi bajtovi određuju format, a sažetak se računa dok se sadržaj
+    // zapisuje u privremenu datoteku uz konačnu lokaciju. Prekoračenje veličine prekida čitanje odmah.
+    @Override
+    public String store(InputStream input, long maxBytes) throws IOException {
+        return store(input, maxBytes, null);
+    }
+
+    // Zadana ekstenzija preskače prepoznavanje formata - samo za sadržaj kojemu je tip već poznat (migracije)
+    @Override
+    public String store(InputStream input, long maxBytes, String extension) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        int headerLength = input.readNBytes(buffer, 0, ImageTypes.HEADER_LENGTH);
+        if (extension == null) {
+            extension = ImageTypes.sniffExtension(buffer, headerLength);
+        }
+        if (extension == null) {
+            throw new IllegalArgumentException("Datoteka nije podržana slika (PNG, JPEG, GIF ili WebP).");
+        }
+
+        Files.createDirectories(uploadPath);
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(uploadPath, ".upload-", ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                long total = 0;
+                int read = headerLength;
+                do {
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new FileSizeExceededException("Slika je prevelika! Maksimalno " + maxBytes / (1024 * 1024) + "MB.");
+                    }
+                    digest.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                } while ((read = input.read(buffer)) != -1);
+            }
+
+            String fileName = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path target = uploadPath.resolve(fileName);
+            String imageUrl = "/" + fileName;
+            synchronized (this) {
+                forgetExpiredUnconfirmed();
+                if (Files.exists(target)) {
+                    // Postojeći blob se "osvježava" da ga release/GC ne obriše prije nego što se referenca upiše,
+                    // a discard ga više ne smije brisati jer ga koristi i ovaj upload
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    unconfirmed.remove(imageUrl);
+                } else {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    unconfirmed.put(imageUrl, Instant.now());
+                }
+            }
+            return imageUrl;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Broj redaka (proizvodi, arhivirani proizvodi, kategorije) koji pokazuju na sliku
+    @Override
+    public long referenceCount(String imageUrl) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM product WHERE image_url = ?) " +
+                "+ (SELECT COUNT(*) FROM product_archive WHERE image_url = ?) " +
+                "+ (SELECT COUNT(*) FROM category WHERE image_url = ?)",
+                Long.class, imageUrl, imageUrl, imageUrl);
+        return count == null ? 0 : count;
+    }
+
+    // Briše blob i njegove varijante ako ga više nitko ne koristi. Starije datoteke (UUID/timestamp
+    // nazivi) i tek spremljeni blobovi se ne diraju.
+    @Override
+    public boolean release(String imageUrl) {
+        String fileName = ImageVariants.fileNameOf(imageUrl);
+        if (fileName == null || !CONTENT_ADDRESSED.matcher(fileName).matches()) {
+            return false;
+        }
+
+        synchronized (this) {
+            Path blob = uploadPath.resolve(fileName);
+            try {
+                if (!Files.exists(blob)
+                        || Files.getLastModifiedTime(blob).toInstant().isAfter(Instant.now().minus(releaseGracePeriod))
+                        || referenceCount(imageUrl) > 0) {
+                    return false;
+                }
+                deleteBlob(fileName);
+                return true;
+            } catch (IOException e) {
+                log.warn("Slika {} nije obrisana: {}", fileName, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    // Poništava store() čiji zapis u bazu nije uspio. Briše se samo blob koji je stvorio taj upload,
+    // i to samo ako ga u međuvremenu nije ponovno iskoristio drugi upload ili redak u bazi.
+    @Override
+    public void discard(String imageUrl) {
+        synchronized (this) {
+            if (unconfirmed.remove(imageUrl) == null || referenceCount(imageUrl) > 0) {
+                return;
+            }
+            try {
+                deleteBlob(ImageVariants.fileNameOf(imageUrl));
+            } catch (IOException e) {
+                log.warn("Slika {} nije obrisana: {}", imageUrl, e.getMessage());
+            }
+        }
+    }
+
+    // Čišćenje uploada premješta datoteku pod istim monitorom kao store(): upload koji je u međuvremenu
+    // ponovno iskoristio blob (osvježeno vrijeme izmjene) ili redak upisan nakon popisa referenci je zadržava
+    @Override
+    public boolean moveToTrash(Path file, Path target, Instant unusedBefore) throws IOException {
+        boolean original = uploadPath.toAbsolutePath().normalize().equals(file.toAbsolutePath().normalize().getParent());
+        String fileName = file.getFileName().toString();
+
+        synchronized (this) {
+            if (!Files.exists(file) || !Files.getLastModifiedTime(file).toInstant().isBefore(unusedBefore)) {
+                return false;
+            }
+            if (original && (unconfirmed.containsKey("/" + fileName) || referenceCount("/" + fileName) > 0)) {
+                return false;
+            }
+
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            if (original) {
+                ImageVariants.forget("/" + fileName);
+            } else {
+                ImageVariants.forgetVariant(fileName);
+            }
+        }
+        // Rok zadržavanja u smeću računa se od premještanja
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        return true;
+    }
+
+    private void deleteBlob(String fileName) throws IOException {
+        ImageVariants.forget("/" + fileName);
+        Files.deleteIfExists(uploadPath.resolve(fileName));
+        String variantName = ImageVariants.variantFileName(fileName);
+        for (ImageVariants.Size size : ImageVariants.Size.values()) {
+            Files.deleteIfExists(uploadPath.resolve(ImageVariants.DIRECTORY).resolve(size.folder()).resolve(variantName));
+        }
+    }
+
+    private void forgetExpiredUnconfirmed() {
+        Instant expiry = Instant.now().minus(releaseGracePeriod);
+        unconfirmed.values().removeIf(created -> created.isBefore(expiry));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nije dostupan", e);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.webshop.app.service;
+
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.repository.ProductRepository;
+import com.webshop.app.utils.ImageVariants;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Pozadinsko generiranje varijanti slika (thumbnail, card, detail) nakon uploada.
+// Radi na ograničenom broju dretvi, a broj zadataka na čekanju ograničava semafor.
+@Slf4j
+@Component
+public class ImageVariantProcessor {
+
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final int NOTIFY_CHUNK = 1000;
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path uploadPath;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore pending;
+
+    public ImageVariantProcessor(ProductRepository productRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${app.image.upload-dir}") String uploadDir,
+                                 @Value("${app.image.variants.workers:2}") int workers,
+                                 @Value("${app.image.variants.queue-capacity:200}") int queueCapacity) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.uploadPath = Paths.get(uploadDir);
+        this.pending = new Semaphore(queueCapacity);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Poziva se nakon spremanja originala; zahtjev ne čeka obradu
+    public void submit(String imageUrl) {
+        if (ImageVariants.fileNameOf(imageUrl) == null) {
+            return;
+        }
+        // Isti sadržaj već je spremljen (deduplicirani upload) - varijante postoje
+        if (variantsExist(imageUrl)) {
+            ImageVariants.markReady(imageUrl);
+            return;
+        }
+        if (!pending.tryAcquire()) {
+            log.warn("Red za varijante slika je pun, {} se obrađuje pri sljedećem pokretanju", imageUrl);
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                if (generate(imageUrl)) {
+                    notifyProducts(List.of(imageUrl));
+                }
+            } finally {
+                pending.release();
+            }
+        });
+    }
+
+    // Postojeće slike bez varijanti obrađuju se paralelno na istom poolu; čeka se na slobodno mjesto u redu
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Thread thread = new Thread(this::runBackfill, "image-variants-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runBackfill() {
+        List<String> imageUrls;
+        try (Stream<Path> files = Files.list(uploadPath)) {
+            imageUrls = files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith("."))
+                    .map(file -> "/" + file.getFileName())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Upload direktorij {} nije moguće pročitati: {}", uploadPath, e.getMessage());
+            return;
+        }
+
+        // Katalog se poslužuje već tijekom prolaza, pa proizvodi sa spremnim varijantama
+        // dobivaju novu verziju kataloga odmah, a ne tek nakon generiranja nedostajućih
+        List<String> ready = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String imageUrl : imageUrls) {
+            if (variantsExist(imageUrl)) {
+                ImageVariants.markReady(imageUrl);
+                ready.add(imageUrl);
+            } else {
+                missing.add(imageUrl);
+            }
+        }
+        if (!ready.isEmpty()) {
+            notifyProducts(ready);
+        }
+
+        List<String> generated = new ArrayList<>();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (String imageUrl : missing) {
+            try {
+                pending.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            tasks.add(executor.submit(() -> {
+                try {
+                    if (generate(imageUrl)) {
+                        synchronized (generated) {
+                            generated.add(imageUrl);
+                        }
+                    }
+                } finally {
+                    pending.release();
+                }
+            }));
+        }
+
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Obrada varijante nije uspjela: {}", e.getCause().getMessage());
+            }
+        }
+        if (!generated.isEmpty()) {
+            log.info("Generirane varijante za {} postojećih slika", generated.size());
+            notifyProducts(generated);
+        }
+    }
+
+    private boolean variantsExist(String imageUrl) {
+        String variantName = ImageVariants.variantFileName(ImageVariants.fileNameOf(imageUrl));
+        for (ImageVariants.Size size : ImageVariants.Size.values()) {
+            if (!Files.exists(variantPath(size, variantName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path variantPath(ImageVariants.Size size, String variantName) {
+        return uploadPath.resolve(ImageVariants.DIRECTORY).resolve(size.folder()).resolve(variantName);
+    }
+
+    private boolean generate(String imageUrl) {
+        String fileName = ImageVariants.fileNameOf(imageUrl);
+        try {
+            BufferedImage source = ImageIO.read(uploadPath.resolve(fileName).toFile());
+            if (source == null) {
+                // Format koji ImageIO ne čita (npr. WebP) - ostaje samo original
+                log.debug("Varijante se ne generiraju za nepodržani format: {}", fileName);
+                return false;
+            }
+
+            boolean transparent = ImageVariants.keepsTransparency(fileName);
+            String variantName = ImageVariants.variantFileName(fileName);
+            for (ImageVariants.Size size : ImageVariants.Size.values()) {
+                BufferedImage scaled = scale(source, size.getMaxDimension(), transparent);
+                writeAtomically(scaled, variantPath(size, variantName), transparent);
+            }
+            ImageVariants.markReady(imageUrl);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Generiranje varijanti za {} nije uspjelo: {}", fileName, e.getMessage());
+            return false;
+        }
+    }
+
+    // Smanjuje se samo po potrebi; JPEG nema alfa kanal pa se prozirnost popunjava bijelom
+    private BufferedImage scale(BufferedImage source, int maxDimension, boolean transparent) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage target = new BufferedImage(width, height,
+                transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            if (!transparent) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Pisanje u privremenu datoteku pa premještanje - klijent nikad ne dobije napola zapisanu varijantu
+    private void writeAtomically(BufferedImage image, Path target, boolean transparent) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            if (transparent) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                writeJpeg(image, temp);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // Proizvodi s tim slikama dobivaju novu verziju kataloga (ETag, snimke odgovora)
+    private void notifyProducts(List<String> imageUrls) {
+        for (int from = 0; from < imageUrls.size(); from += NOTIFY_CHUNK) {
+            List<String> chunk = imageUrls.subList(from, Math.min(from + NOTIFY_CHUNK, imageUrls.size()));
+            List<Long> ids = productRepository.findIdsByImageUrlIn(chunk);
+            if (!ids.isEmpty()) {
+                eventPublisher.publishEvent(new ProductsBulkChangedEvent(this, ids));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
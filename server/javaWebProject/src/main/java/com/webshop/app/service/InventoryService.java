@@ -0,0 +1,8 @@
+package com.webshop.app.service;
+
+import java.util.Map;
+
+public interface InventoryService {
+
+    Map<Long, Integer> decrementStock(Map<Long, Integer> quantities);
+}
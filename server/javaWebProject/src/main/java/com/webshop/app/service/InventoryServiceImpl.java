@@ -0,0 +1,63 @@
+package com.webshop.app.service;
+
+import com.webshop.app.exception.InsufficientStockException;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Smanjenje zalihe uvjetnim UPDATE-om: baza sama provjerava stock >= količina, pa istovremene
+// narudžbe ne mogu izgubiti izmjenu ni otići u minus (nema read-modify-write u aplikaciji).
+@Service
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE product SET stock = stock - ? WHERE id = ? AND deleted = false AND stock >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Poziva se unutar transakcije narudžbe - ako bilo koja stavka ne prođe, poništava se cijela narudžba.
+    // Vraća novu zalihu po proizvodu.
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Map<Long, Integer> decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return Map.of();
+        }
+
+        // Retci se zaključavaju uvijek istim redom (po ID-u), pa se dvije narudžbe ne mogu zaglaviti
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+            ps.setInt(3, line.getValue());
+        });
+
+        for (int i = 0; i < lines.size(); i++) {
+            int count = counts[0][i];
+            if (count == Statement.SUCCESS_NO_INFO) {
+                throw new IllegalStateException("JDBC driver ne vraća broj izmijenjenih redaka - zaliha se ne može provjeriti");
+            }
+            if (count == 0) {
+                Long productId = lines.get(i).getKey();
+                throw new InsufficientStockException(productId, "Insufficient stock for product: " + productId);
+            }
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(lines.size(), "?"));
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock FROM product WHERE id IN (" + placeholders + ")",
+                rs -> { stock.put(rs.getLong(1), rs.getInt(2)); },
+                lines.stream().map(Map.Entry::getKey).toArray());
+        return stock;
+    }
+}
@@ -2,12 +2,12 @@ package com.webshop.app.service;
 
 import com.webshop.app.dto.LoginHistoryDTO;
 import com.webshop.app.exception.UserNotFoundException;
+import com.webshop.app.mapper.LoginHistoryMapper;
 import com.webshop.app.model.ApplicationUser;
 import com.webshop.app.model.LoginHistory;
 import com.webshop.app.repository.ApplicationUserRepository;
 import com.webshop.app.repository.LoginHistoryRepository;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -20,7 +20,7 @@ public class LoginHistoryServiceImpl implements LoginHistoryService {
 
     private final LoginHistoryRepository loginHistoryRepository;
     private final ApplicationUserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final LoginHistoryMapper loginHistoryMapper;
 
     public void saveLoginHistory(String email, String ipAddress) {
         if (email == null || email.isBlank()) {
@@ -49,14 +49,6 @@ public class LoginHistoryServiceImpl implements LoginHistoryService {
     }
 
     private LoginHistoryDTO convertToDTO(LoginHistory loginHistory) {
-        LoginHistoryDTO dto = modelMapper.map(loginHistory, LoginHistoryDTO.class);
-
-        if (loginHistory.getApplicationUser() != null) {
-            dto.setUserEmail(loginHistory.getApplicationUser().getEmail());
-            dto.setUserFirstName(loginHistory.getApplicationUser().getFirstName());
-            dto.setUserLastName(loginHistory.getApplicationUser().getLastName());
-        }
-
-        return dto;
+        return loginHistoryMapper.toDTO(loginHistory);
     }
 }
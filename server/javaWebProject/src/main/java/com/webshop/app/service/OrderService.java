@@ -15,6 +15,7 @@ public interface OrderService {
    List<OrderDTO> getOrdersForCurrentUser();
 
    Long createPendingOrder(CartDTO cartDTO, ApplicationUser applicationUser, PaymentMethod paymentMethod, String shippingAddress);
+   Long createConfirmedOrder(CartDTO cartDTO, ApplicationUser applicationUser, PaymentMethod paymentMethod, String shippingAddress);
    void updateOrderPaymentId(Long orderId, String paymentId);
    boolean validateOrderPayment(Long orderId, String paymentId);
    void confirmOrder(Long orderId);
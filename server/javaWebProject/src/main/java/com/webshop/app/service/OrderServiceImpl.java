@@ -3,24 +3,37 @@ package com.webshop.app.service;
 import com.webshop.app.dto.CartDTO;
 import com.webshop.app.dto.CartItemDTO;
 import com.webshop.app.dto.OrderDTO;
+import com.webshop.app.dto.OrderItemRowDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.exception.InsufficientStockException;
 import com.webshop.app.exception.ResourceNotFoundException;
 import com.webshop.app.exception.UserNotFoundException;
+import com.webshop.app.mapper.ProductMapper;
 import com.webshop.app.model.*;
 import com.webshop.app.repository.ApplicationUserRepository;
 import com.webshop.app.repository.OrderRepository;
 import com.webshop.app.repository.ProductRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
@@ -29,109 +42,119 @@ public class OrderServiceImpl implements OrderService {
     private final ProductRepository productRepository;
     private final ApplicationUserRepository applicationUserRepository;
 //    private final CartService cartService;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryService inventoryService;
+    private final StockReservations stockReservations;
+
+    private static final int ITEM_QUERY_CHUNK = 1000;
 
     public List<OrderDTO> getOrdersForCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String email = authentication.getName();
 
-        ApplicationUser user = applicationUserRepository.findByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("Korisnik nije pronađen"));
-
-        List<Order> orders = orderRepository.findByUser(user);
+        if (!applicationUserRepository.existsByEmail(email)) {
+            throw new UserNotFoundException("Korisnik nije pronađen");
+        }
 
-        return convertOrderToDTO(orders);
+        return attachItems(orderRepository.findOrderViewsByUserEmail(email));
     }
 
 
+    @Transactional
     public void createOrder(CartDTO cartDTO, ApplicationUser applicationUser, PaymentMethod paymentMethod, String shippingAddress) {
-        BigDecimal totalPrice = cartDTO.getItems().stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        List<OrderItem> orderItems = cartDTO.getItems().stream()
-                .map(item -> {
-                    OrderItem orderItem = new OrderItem();
-
-
-                    Product product = productRepository.findById(item.getProductId())
-                            .orElseThrow(() -> new RuntimeException("Product not found for ID: " + item.getProductId()));
-
-                    orderItem.setProduct(product);
-                    orderItem.setCategory(product.getCategory());
-                    orderItem.setQuantity(item.getQuantity());
-                    orderItem.setTotalPrice(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-
-                    orderItem.setOrder(null);
-
-                    return orderItem;
-                }).collect(Collectors.toList());
-
-
-        Order order = new Order();
-        order.setUser(applicationUser);
-        order.setItems(orderItems);
-        order.setTotalPrice(totalPrice);
-        order.setPaymentMethod(paymentMethod);
-        order.setOrderDate(LocalDateTime.now());
-        order.setShippingAddress(shippingAddress);
-
-
-        for (OrderItem orderItem : orderItems) {
-            orderItem.setOrder(order);
-        }
-
-
+        Order order = buildOrder(cartDTO, applicationUser, paymentMethod, shippingAddress);
         orderRepository.save(order);
     }
 
     public List<OrderDTO> getAllOrders() {
-
-        List<Order> orders = orderRepository.findAll();
-
-        return convertOrderToDTO(orders);
+        return attachItems(orderRepository.findAllOrderViews());
     }
 
 
+    // Zaliha se rezervira odmah, da je za vrijeme PayPal preusmjeravanja ne može uzeti druga narudžba
     @Override
     @Transactional
     public Long createPendingOrder(CartDTO cartDTO, ApplicationUser applicationUser, PaymentMethod paymentMethod, String shippingAddress) {
-        BigDecimal totalPrice = cartDTO.getItems().stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        List<OrderItem> orderItems = cartDTO.getItems().stream()
-                .map(item -> {
-                    OrderItem orderItem = new OrderItem();
+        Order order = buildOrder(cartDTO, applicationUser, paymentMethod, shippingAddress);
+        order.setStatus(OrderStatus.PENDING_PAYMENT);
+        Long orderId = orderRepository.save(order).getId();
 
-                    Product product = productRepository.findById(item.getProductId())
-                            .orElseThrow(() -> new RuntimeException("Product not found for ID: " + item.getProductId()));
+        stockReservations.reserve(orderId, quantitiesOf(order), stockOf(order));
+        afterRollback(() -> stockReservations.release(orderId));
+        return orderId;
+    }
 
-                    orderItem.setProduct(product);
-                    orderItem.setCategory(product.getCategory());
-                    orderItem.setQuantity(item.getQuantity());
-                    orderItem.setTotalPrice(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+    // Plaćanje pouzećem: narudžba se sprema i potvrđuje u istoj transakciji, nad već učitanim proizvodima.
+    // Kratka rezervacija osigurava da se ne uzme zaliha rezervirana za narudžbe koje čekaju plaćanje.
+    @Override
+    @Transactional
+    public Long createConfirmedOrder(CartDTO cartDTO, ApplicationUser applicationUser, PaymentMethod paymentMethod, String shippingAddress) {
+        Order order = buildOrder(cartDTO, applicationUser, paymentMethod, shippingAddress);
+        Long orderId = orderRepository.save(order).getId();
+
+        stockReservations.reserve(orderId, quantitiesOf(order), stockOf(order));
+        afterCompletion(() -> stockReservations.release(orderId));
+        applyConfirmation(order);
+        return orderId;
+    }
 
-                    orderItem.setOrder(null);
+    // Svi proizvodi iz košarice učitavaju se jednim IN upitom; provjera, stavke i kasnije
+    // smanjenje zalihe rade nad istim skupom, pa broj upita ne raste s veličinom košarice
+    private Order buildOrder(CartDTO cartDTO, ApplicationUser applicationUser, PaymentMethod paymentMethod, String shippingAddress) {
+        Map<Long, Product> products = loadCartProducts(cartDTO.getItems());
 
-                    return orderItem;
-                }).collect(Collectors.toList());
+        BigDecimal totalPrice = cartDTO.getItems().stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         Order order = new Order();
+        List<OrderItem> orderItems = new ArrayList<>(cartDTO.getItems().size());
+        for (CartItemDTO item : cartDTO.getItems()) {
+            Product product = products.get(item.getProductId().longValue());
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProduct(product);
+            orderItem.setCategory(product.getCategory());
+            orderItem.setQuantity(item.getQuantity());
+            orderItem.setTotalPrice(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            orderItem.setOrder(order);
+            orderItems.add(orderItem);
+        }
+
         order.setUser(applicationUser);
         order.setItems(orderItems);
         order.setTotalPrice(totalPrice);
         order.setPaymentMethod(paymentMethod);
         order.setOrderDate(LocalDateTime.now());
         order.setShippingAddress(shippingAddress);
-        order.setStatus(OrderStatus.PENDING_PAYMENT);
+        return order;
+    }
 
-        for (OrderItem orderItem : orderItems) {
-            orderItem.setOrder(order);
+    private Map<Long, Product> loadCartProducts(List<CartItemDTO> items) {
+        // Ista stavka može se u košarici pojaviti više puta - zaliha se provjerava za ukupnu količinu
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (CartItemDTO item : items) {
+            requested.merge(item.getProductId().longValue(), item.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findWithCategoryByIdIn(requested.keySet())) {
+            if (!product.isDeleted()) {
+                products.put(product.getId(), product);
+            }
         }
 
-        Order savedOrder = orderRepository.save(order);
-        return savedOrder.getId();
+        requested.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+            if (product.getStock() < quantity) {
+                throw new InsufficientStockException(productId, "Insufficient stock for: " + product.getName());
+            }
+        });
+        return products;
     }
 
     @Override
@@ -154,29 +177,134 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public void confirmOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        if (orderRepository.updateStatusIfCurrent(orderId, OrderStatus.PENDING_PAYMENT, OrderStatus.CONFIRMED) == 0) {
+            OrderStatus status = currentStatus(orderId);
+            // Ponovljeni povratak s PayPala za već potvrđenu narudžbu
+            if (status == OrderStatus.CONFIRMED) {
+                return;
+            }
+            log.warn("Plaćena narudžba {} ne može se potvrditi, status: {}", orderId, status);
+            throw new IllegalStateException("Narudžba " + orderId + " nije na čekanju plaćanja, status: " + status);
+        }
+
+        // Učitava se nakon UPDATE-a, pa je status u entitetu već CONFIRMED
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Narudžba nije pronađena: " + orderId));
+        applyConfirmation(order);
+        afterCommit(() -> stockReservations.commit(orderId));
+    }
 
+    // Zaliha se smanjuje jednim batchem uvjetnih UPDATE-a; entiteti se ne mijenjaju, pa flush ne može
+    // prepisati zalihu koju je u međuvremenu promijenila druga narudžba
+    private void applyConfirmation(Order order) {
         order.setStatus(OrderStatus.CONFIRMED);
 
+        Map<Long, Product> products = new HashMap<>();
         for (OrderItem orderItem : order.getItems()) {
-            Product product = orderItem.getProduct();
-            int newStock = product.getStock() - orderItem.getQuantity();
-            product.setStock(newStock);
-            productRepository.save(product);
+            products.put(orderItem.getProduct().getId(), orderItem.getProduct());
         }
 
-        orderRepository.save(order);
+        Map<Long, Integer> newStock = inventoryService.decrementStock(quantitiesOf(order));
+        List<ProductChangedEvent> events = new ArrayList<>(products.size());
+        for (Product product : products.values()) {
+            // Zaliha je dio kataloga u memoriji (cache, facet "na zalihi")
+            ProductDTO productDTO = productMapper.toDTO(product);
+            productDTO.setStock(newStock.get(product.getId()));
+            events.add(new ProductChangedEvent(this, ProductChangedEvent.ChangeType.UPDATED,
+                    productDTO, productDTO.getCategoryId(), product.isDeleted()));
+        }
+        // Katalog u memoriji smije vidjeti novu zalihu tek kad je narudžba zapisana
+        afterCommit(() -> events.forEach(eventPublisher::publishEvent));
     }
 
     @Override
     @Transactional
     public void cancelOrder(Long orderId, String reason) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Narudžba nije pronađena: " + orderId));
+        cancelPending(orderId);
+    }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
+    // Otkazuje se samo narudžba koja još čeka plaćanje; rezervacija se otpušta samo ako je prijelaz stvarno napravljen
+    private boolean cancelPending(Long orderId) {
+        if (orderRepository.updateStatusIfCurrent(orderId, OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED) == 0) {
+            log.info("Narudžba {} nije otkazana, status: {}", orderId, currentStatus(orderId));
+            return false;
+        }
+        afterCommit(() -> stockReservations.release(orderId));
+        return true;
+    }
+
+    // Narudžbe kojima je istekla rezervacija otkazuju se, pa ih povratak s PayPala više ne može potvrditi.
+    // Uvjetni UPDATE ima vlastitu transakciju; potvrda koja je u tijeku završava prije njega.
+    @Scheduled(fixedDelayString = "${app.checkout.reservation-sweep-ms:30000}")
+    public void expireReservations() {
+        for (Long orderId : stockReservations.expiredOrderIds()) {
+            try {
+                if (cancelPending(orderId)) {
+                    log.info("Narudžba {} otkazana - rezervacija zalihe je istekla", orderId);
+                } else {
+                    // Narudžba je već potvrđena ili otkazana, zaliha je u bazi već ažurirana
+                    stockReservations.release(orderId);
+                }
+            } catch (ResourceNotFoundException e) {
+                stockReservations.release(orderId);
+            } catch (RuntimeException e) {
+                // Rezervacija ostaje do sljedećeg prolaza - narudžba možda još čeka plaćanje
+                log.warn("Istek rezervacije za narudžbu {}: {}", orderId, e.getMessage());
+            }
+        }
+    }
+
+    private static Map<Long, Integer> quantitiesOf(Order order) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem orderItem : order.getItems()) {
+            quantities.merge(orderItem.getProduct().getId(), orderItem.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static Map<Long, Integer> stockOf(Order order) {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (OrderItem orderItem : order.getItems()) {
+            stock.put(orderItem.getProduct().getId(), orderItem.getProduct().getStock());
+        }
+        return stock;
+    }
+
+    // Rezervacije u memoriji mijenjaju se tek kad je poznat ishod transakcije narudžbe
+    private static void afterCommit(Runnable action) {
+        onCompletion(action, true);
+    }
+
+    private static void afterRollback(Runnable action) {
+        onCompletion(action, false);
+    }
+
+    private static void afterCompletion(Runnable action) {
+        onCompletion(action, null);
+    }
+
+    private static void onCompletion(Runnable action, Boolean onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit == null || onCommit) {
+                action.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                if (onCommit == null || onCommit == committed) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private OrderStatus currentStatus(Long orderId) {
+        return orderRepository.findById(orderId)
+                .map(Order::getStatus)
+                .orElseThrow(() -> new ResourceNotFoundException("Narudžba nije pronađena: " + orderId));
     }
 
     public OrderStatus getOrderStatus(Long orderId) {
@@ -187,44 +315,31 @@ public class OrderServiceImpl implements OrderService {
 
 
     public OrderDTO getOrderById(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        return attachItems(orderRepository.findOrderViewById(orderId)).stream()
+                .findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("Narudžba nije pronađena: " + orderId));
-
-        return convertToDTO(order);
     }
 
 
-    private OrderDTO convertToDTO(Order order) {
-        OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-
-        orderDTO.setItems(order.getItems().stream()
-                .map(item -> {
-                    return new CartItemDTO(
-                            Math.toIntExact(item.getProduct().getId()),
-                            item.getProduct().getName(),
-                            item.getProduct().getPrice(),
-                            item.getQuantity()
-                    );
-                })
-                .collect(Collectors.toList()));
-
-        if (order.getStatus() != null) {
-            orderDTO.setStatus(order.getStatus().toString());
+    // Stavke svih narudžbi dohvaćaju se jednim IN upitom po dijelu, umjesto lazy učitavanja po narudžbi
+    private List<OrderDTO> attachItems(List<OrderDTO> orders) {
+        if (orders.isEmpty()) {
+            return orders;
         }
 
-        if (order.getUser() != null) {
-            orderDTO.setUserId(Long.valueOf(order.getUser().getId()));
-            orderDTO.setUserFirstName(order.getUser().getFirstName());
-            orderDTO.setUserLastName(order.getUser().getLastName());
-            orderDTO.setUserEmail(order.getUser().getEmail());
+        Map<Long, OrderDTO> byId = new LinkedHashMap<>();
+        for (OrderDTO order : orders) {
+            order.setItems(new ArrayList<>());
+            byId.put(order.getId(), order);
         }
 
-        return orderDTO;
-    }
-
-    private List<OrderDTO> convertOrderToDTO(List<Order> orders) {
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<Long> orderIds = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < orderIds.size(); from += ITEM_QUERY_CHUNK) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + ITEM_QUERY_CHUNK, orderIds.size()));
+            for (OrderItemRowDTO row : orderRepository.findItemRowsByOrderIds(chunk)) {
+                byId.get(row.getOrderId()).getItems().add(row.toCartItemDTO());
+            }
+        }
+        return orders;
     }
 }
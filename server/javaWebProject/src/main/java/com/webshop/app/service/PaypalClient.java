@@ -0,0 +1,104 @@
+package com.webshop.app.service;
+
+import com.paypal.api.payments.Payment;
+import com.paypal.base.rest.PayPalRESTException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// PayPal pozivi izvan Tomcat dretvi: ograničen broj dretvi i čekanja, pa spori PayPal
+// ne zauzima dretve koje poslužuju katalog. Pun red odmah odbija poziv umjesto da ga gomila.
+// Nastavci s radom na bazi (potvrda, otkazivanje) idu na zasebne completion dretve, da ne
+// zauzimaju PayPal dretve ni zajedničku dretvu koja okida CompletableFuture timeoute.
+@Slf4j
+@Component
+public class PaypalClient {
+
+    private final PaypalService paypalService;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor completionExecutor;
+
+    public PaypalClient(PaypalService paypalService,
+                        @Value("${app.paypal.async.workers:16}") int workers,
+                        @Value("${app.paypal.async.queue-capacity:100}") int queueCapacity,
+                        @Value("${app.paypal.async.completion-workers:4}") int completionWorkers) {
+        this.paypalService = paypalService;
+        this.executor = newPool("paypal-", workers, new ArrayBlockingQueue<>(queueCapacity));
+        // Red nije ograničen: nastavaka nema više od primljenih PayPal poziva, a nijedan se ne smije odbaciti
+        this.completionExecutor = newPool("paypal-completion-", completionWorkers, new LinkedBlockingQueue<>());
+    }
+
+    public CompletableFuture<Payment> createPayment(Double total, String currency, String method, String intent,
+                                                    String description, String cancelUrl, String successUrl) {
+        return call(() -> paypalService.createPayment(total, currency, method, intent,
+                description, cancelUrl, successUrl));
+    }
+
+    public CompletableFuture<Payment> executePayment(String paymentId, String payerId) {
+        return call(() -> paypalService.executePayment(paymentId, payerId));
+    }
+
+    // Greške iz lanca budućih rezultata dolaze omotane u CompletionException
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    public Executor completionExecutor() {
+        return completionExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        completionExecutor.shutdown();
+    }
+
+    private static ThreadPoolExecutor newPool(String namePrefix, int threads, BlockingQueue<Runnable> queue) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, queue,
+                runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private CompletableFuture<Payment> call(PaypalCall call) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.run();
+                } catch (PayPalRESTException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("PayPal poziv odbijen - {} aktivnih, {} na čekanju",
+                    executor.getActiveCount(), executor.getQueue().size());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PaypalCall {
+        Payment run() throws PayPalRESTException;
+    }
+}
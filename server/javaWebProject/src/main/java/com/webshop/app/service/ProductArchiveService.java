@@ -0,0 +1,13 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.ArchivedProductDTO;
+import com.webshop.app.dto.ProductDTO;
+
+import java.util.List;
+
+public interface ProductArchiveService {
+
+    int archiveDeletedProducts();
+    List<ArchivedProductDTO> getArchivedProducts(Integer limit);
+    ProductDTO restoreProduct(Long productId);
+}
@@ -0,0 +1,127 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.ArchivedProductDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.exception.ResourceNotFoundException;
+import com.webshop.app.model.OrderStatus;
+import com.webshop.app.model.ProductArchive;
+import com.webshop.app.repository.CategoryRepository;
+import com.webshop.app.repository.ProductArchiveRepository;
+import com.webshop.app.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Premješta logički obrisane proizvode iz tablice Product u ProductArchive, kako listinzi ne bi
+// filtrirali sve veću hrpu obrisanih redaka. Proizvodi iz otvorenih narudžbi ostaju na mjestu.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductArchiveServiceImpl implements ProductArchiveService {
+
+    // Živi red proizvoda treba samo narudžba koja čeka plaćanje (potvrda umanjuje zalihu);
+    // potvrđene narudžbe povijest čitaju i iz arhive
+    private static final List<OrderStatus> OPEN_ORDER_STATUSES = List.of(OrderStatus.PENDING_PAYMENT);
+
+    private static final String COPY_TO_ARCHIVE_SQL =
+            "INSERT INTO product_archive (id, name, description, price, image_url, stock, category_id, archived_at) " +
+            "SELECT id, name, description, price, image_url, stock, category_id, :archivedAt " +
+            "FROM product WHERE id IN (:ids) AND deleted = true";
+    private static final String DELETE_ARCHIVED_SQL =
+            "DELETE FROM product WHERE id IN (:ids) AND deleted = true";
+    private static final String RESTORE_SQL =
+            "INSERT INTO product (id, name, description, price, image_url, stock, category_id, deleted) " +
+            "VALUES (:id, :name, :description, :price, :imageUrl, :stock, :categoryId, false)";
+
+    private final ProductRepository productRepository;
+    private final ProductArchiveRepository productArchiveRepository;
+    private final CategoryRepository categoryRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.catalog.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.catalog.archive.max-list-size:1000}")
+    private int maxListSize;
+
+    @Override
+    @Scheduled(cron = "${app.catalog.archive.cron:0 30 3 * * *}")
+    public synchronized int archiveDeletedProducts() {
+        int archived = 0;
+        while (true) {
+            List<Long> ids = productRepository.findArchivableProductIds(OPEN_ORDER_STATUSES, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("archivedAt", LocalDateTime.now());
+            Integer moved = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(COPY_TO_ARCHIVE_SQL, params);
+                return jdbcTemplate.update(DELETE_ARCHIVED_SQL, params);
+            });
+
+            eventPublisher.publishEvent(new ProductsBulkChangedEvent(this, ids));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+        }
+
+        if (archived > 0) {
+            log.info("Arhivirano logički obrisanih proizvoda: {}", archived);
+        }
+        return archived;
+    }
+
+    @Override
+    public List<ArchivedProductDTO> getArchivedProducts(Integer limit) {
+        int size = limit == null || limit <= 0 ? maxListSize : Math.min(limit, maxListSize);
+        return productArchiveRepository.findArchivedViews(PageRequest.of(0, size));
+    }
+
+    // Proizvod se vraća u Product s istim ID-em i ponovno je aktivan
+    @Override
+    public ProductDTO restoreProduct(Long productId) {
+        ProductArchive archived = productArchiveRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Arhivirani proizvod nije pronađen s ID-jem: " + productId));
+
+        Long categoryId = archived.getCategoryId() != null
+                && categoryRepository.existsById(archived.getCategoryId().intValue())
+                ? archived.getCategoryId() : null;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", archived.getId())
+                .addValue("name", archived.getName())
+                .addValue("description", archived.getDescription())
+                .addValue("price", archived.getPrice())
+                .addValue("imageUrl", archived.getImageUrl())
+                .addValue("stock", archived.getStock())
+                .addValue("categoryId", categoryId);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(RESTORE_SQL, params);
+            jdbcTemplate.update("DELETE FROM product_archive WHERE id = :id", params);
+        });
+
+        ProductDTO restored = productRepository.findProductViewById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Proizvod nije pronađen s ID-jem: " + productId));
+        eventPublisher.publishEvent(new ProductChangedEvent(this, ProductChangedEvent.ChangeType.CREATED,
+                restored, null, null));
+        return restored;
+    }
+}
@@ -0,0 +1,205 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.CacheStatsDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class ProductCache {
+
+    private static final String ALL_SCOPE = "all|";
+
+    private final int maxProducts;
+    private final int maxListings;
+    private final long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Povećava se pri svakoj invalidaciji; loader koji je krenuo prije nje ne smije vratiti stari podatak u cache
+    private long generation = 0;
+
+    private final Map<Long, CacheEntry> products;
+    private final Map<String, CacheEntry> listings;
+
+    public ProductCache(@Value("${app.catalog.cache.max-products:10000}") int maxProducts,
+                        @Value("${app.catalog.cache.max-listings:500}") int maxListings,
+                        @Value("${app.catalog.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxProducts = maxProducts;
+        this.maxListings = maxListings;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.products = boundedMap(maxProducts);
+        this.listings = boundedMap(maxListings);
+    }
+
+    public ProductDTO getProduct(Long productId, Supplier<ProductDTO> loader) {
+        return (ProductDTO) lookup(products, productId, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getListing(String key, Supplier<T> loader) {
+        return (T) lookup(listings, key, loader);
+    }
+
+    public static String listingKey(Integer categoryId, Object... parts) {
+        StringBuilder key = new StringBuilder(scopePrefix(categoryId));
+        for (Object part : parts) {
+            key.append(part).append('|');
+        }
+        return key.toString();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        generation++;
+        invalidations.incrementAndGet();
+
+        ProductDTO product = event.getProduct();
+        products.put(product.getId(), new CacheEntry(product, expiryFromNow()));
+
+        removeListings(ALL_SCOPE);
+        if (product.getCategoryId() != null) {
+            removeListings(scopePrefix(product.getCategoryId().intValue()));
+        }
+        if (event.getPreviousCategoryId() != null
+                && !Objects.equals(event.getPreviousCategoryId(), product.getCategoryId())) {
+            removeListings(scopePrefix(event.getPreviousCategoryId().intValue()));
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        generation++;
+        invalidations.incrementAndGet();
+
+        // Naziv kategorije je dio ProductDTO-a, pa zapisi proizvoda iz te kategorije više nisu točni
+        products.values().removeIf(entry ->
+                Objects.equals(((ProductDTO) entry.value).getCategoryId(), event.getCategoryId()));
+        removeListings(ALL_SCOPE);
+        removeListings(scopePrefix(event.getCategoryId().intValue()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        generation++;
+        invalidations.incrementAndGet();
+
+        if (event.getProductIds() == null) {
+            products.clear();
+        } else {
+            event.getProductIds().forEach(products::remove);
+        }
+        listings.clear();
+    }
+
+    public synchronized void clear() {
+        generation++;
+        invalidations.incrementAndGet();
+        products.clear();
+        listings.clear();
+    }
+
+    public synchronized CacheStatsDTO getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        return new CacheStatsDTO(
+                hitCount,
+                missCount,
+                evictions.get(),
+                expirations.get(),
+                invalidations.get(),
+                products.size(),
+                listings.size(),
+                maxProducts,
+                maxListings,
+                total == 0 ? 0.0 : (double) hitCount / total
+        );
+    }
+
+    private <K> Object lookup(Map<K, CacheEntry> map, K key, Supplier<?> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            CacheEntry entry = map.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                map.remove(key);
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            loadGeneration = generation;
+        }
+
+        Object value = loader.get();
+
+        synchronized (this) {
+            if (value != null && loadGeneration == generation) {
+                map.put(key, new CacheEntry(value, expiryFromNow()));
+            }
+        }
+        return value;
+    }
+
+    private void removeListings(String prefix) {
+        Iterator<String> keys = listings.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    private long expiryFromNow() {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private static String scopePrefix(Integer categoryId) {
+        return categoryId == null ? ALL_SCOPE : "cat:" + categoryId + "|";
+    }
+
+    private <K> Map<K, CacheEntry> boundedMap(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static final class CacheEntry {
+        private final Object value;
+        private final long expiresAt;
+
+        private CacheEntry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.PriceBucketDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.dto.ProductFacetsDTO;
+import com.webshop.app.dto.ProductFilterDTO;
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Komprimirane bitmape (po kategoriji, cjenovnom razredu i zalihi) nad aktivnim proizvodima.
+// Kombinirani filter i brojači faceta računaju se presjecima bitmapa, bez upita na bazu.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    private enum Dimension { NONE, CATEGORY, PRICE, STOCK }
+
+    private final ProductRepository productRepository;
+
+    @Value("${app.catalog.facets.price-buckets:50,100,250,500,1000,2500}")
+    private String priceBucketBoundaries;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, ProductDTO> products = new HashMap<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final RoaringBitmap inStock = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private BigDecimal[] bucketLowerBounds;
+    private RoaringBitmap[] byPriceBucket;
+
+    // Promjene koje stignu dok se proizvodi čitaju iz baze: upit ih možda nije vidio,
+    // pa se primjenjuju i nakon punjenja bitmapa. Sve se čuva pod write lockom.
+    private int rebuildsInProgress;
+    private List<ProductDTO> pendingChanges;
+
+    @PostConstruct
+    void initBuckets() {
+        List<BigDecimal> bounds = new ArrayList<>();
+        bounds.add(BigDecimal.ZERO);
+        for (String boundary : priceBucketBoundaries.split(",")) {
+            bounds.add(new BigDecimal(boundary.trim()));
+        }
+        bucketLowerBounds = bounds.toArray(new BigDecimal[0]);
+        byPriceBucket = new RoaringBitmap[bucketLowerBounds.length];
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new RoaringBitmap();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress++ == 0) {
+                pendingChanges = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<ProductDTO> all;
+        try {
+            all = productRepository.findProductViews(Sort.by("id"));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                finishRebuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            live.clear();
+            inStock.clear();
+            byCategory.clear();
+            for (RoaringBitmap bucket : byPriceBucket) {
+                bucket.clear();
+            }
+            all.forEach(this::add);
+            pendingChanges.forEach(this::upsert);
+            finishRebuild();
+            live.runOptimize();
+            inStock.runOptimize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Facet indeks izgrađen: {} proizvoda, {} kategorija", all.size(), byCategory.size());
+    }
+
+    private void finishRebuild() {
+        if (--rebuildsInProgress == 0) {
+            pendingChanges = null;
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        applyChanges(List.of(event.getProduct()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.isDeleted()) {
+            return;
+        }
+        List<ProductDTO> renamed = productRepository.findProductViewsByCategoryId(
+                event.getCategoryId().intValue(), Sort.by("id"));
+
+        lock.writeLock().lock();
+        try {
+            // Svježi DTO-ovi iz baze - tijekom izgradnje se primjenjuju kao i ostale promjene
+            if (rebuildsInProgress > 0) {
+                pendingChanges.addAll(renamed);
+            }
+            for (ProductDTO product : renamed) {
+                products.computeIfPresent(Math.toIntExact(product.getId()), (id, old) -> product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        if (event.getProductIds() == null) {
+            rebuild();
+            return;
+        }
+        applyChanges(productRepository.findProductViewsByIdIn(event.getProductIds()));
+    }
+
+    private void applyChanges(List<ProductDTO> changed) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress > 0) {
+                pendingChanges.addAll(changed);
+            }
+            changed.forEach(this::upsert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(ProductDTO product) {
+        remove(Math.toIntExact(product.getId()));
+        if (!product.isDeleted()) {
+            add(product);
+        }
+    }
+
+    // Vraća proizvode koji zadovoljavaju filter, poredane po ID-u (redoslijed iteracije bitmape)
+    public List<ProductDTO> filter(ProductFilterDTO filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(filter, Dimension.NONE);
+            List<ProductDTO> result = new ArrayList<>(matches.getCardinality());
+            matches.forEach((int id) -> result.add(products.get(id)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ProductFacetsDTO facets(ProductFilterDTO filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(filter, Dimension.NONE);
+
+            // Brojač svake dimenzije računa se bez vlastitog filtera, kako bi se vidjele alternative
+            RoaringBitmap withoutCategory = evaluate(filter, Dimension.CATEGORY);
+            Map<Long, Integer> categoryCounts = new TreeMap<>();
+            for (Map.Entry<Long, RoaringBitmap> entry : byCategory.entrySet()) {
+                int count = RoaringBitmap.andCardinality(withoutCategory, entry.getValue());
+                if (count > 0) {
+                    categoryCounts.put(entry.getKey(), count);
+                }
+            }
+
+            RoaringBitmap withoutPrice = evaluate(filter, Dimension.PRICE);
+            List<PriceBucketDTO> priceCounts = new ArrayList<>(byPriceBucket.length);
+            for (int i = 0; i < byPriceBucket.length; i++) {
+                priceCounts.add(new PriceBucketDTO(bucketLowerBounds[i], upperBound(i),
+                        RoaringBitmap.andCardinality(withoutPrice, byPriceBucket[i])));
+            }
+
+            int inStockCount = RoaringBitmap.andCardinality(evaluate(filter, Dimension.STOCK), inStock);
+
+            return new ProductFacetsDTO(matches.getCardinality(), categoryCounts, priceCounts, inStockCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap evaluate(ProductFilterDTO filter, Dimension excluded) {
+        RoaringBitmap result = live.clone();
+
+        if (excluded != Dimension.CATEGORY && filter.getCategoryId() != null) {
+            RoaringBitmap category = byCategory.get(filter.getCategoryId());
+            if (category == null) {
+                return new RoaringBitmap();
+            }
+            result.and(category);
+        }
+        if (excluded != Dimension.PRICE && (filter.getMinPrice() != null || filter.getMaxPrice() != null)) {
+            result.and(priceRange(filter.getMinPrice(), filter.getMaxPrice()));
+        }
+        if (excluded != Dimension.STOCK && Boolean.TRUE.equals(filter.getInStock())) {
+            result.and(inStock);
+        }
+        return result;
+    }
+
+    private RoaringBitmap priceRange(BigDecimal min, BigDecimal max) {
+        RoaringBitmap range = new RoaringBitmap();
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            BigDecimal lower = bucketLowerBounds[i];
+            BigDecimal upper = upperBound(i);
+
+            boolean overlaps = (max == null || lower.compareTo(max) <= 0)
+                    && (min == null || upper == null || upper.compareTo(min) > 0);
+            if (!overlaps) {
+                continue;
+            }
+
+            boolean contained = (min == null || lower.compareTo(min) >= 0)
+                    && (max == null || (upper != null && upper.compareTo(max) <= 0));
+            if (contained) {
+                range.or(byPriceBucket[i]);
+            } else {
+                // Rubni razred - provjeravamo točnu cijenu svakog proizvoda
+                byPriceBucket[i].forEach((int id) -> {
+                    BigDecimal price = products.get(id).getPrice();
+                    if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) {
+                        range.add(id);
+                    }
+                });
+            }
+        }
+        return range;
+    }
+
+    private BigDecimal upperBound(int bucket) {
+        return bucket + 1 < bucketLowerBounds.length ? bucketLowerBounds[bucket + 1] : null;
+    }
+
+    private int bucketOf(BigDecimal price) {
+        for (int i = bucketLowerBounds.length - 1; i > 0; i--) {
+            if (price.compareTo(bucketLowerBounds[i]) >= 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private void add(ProductDTO product) {
+        int id = Math.toIntExact(product.getId());
+        products.put(id, product);
+        live.add(id);
+        if (product.getCategoryId() != null) {
+            byCategory.computeIfAbsent(product.getCategoryId(), c -> new RoaringBitmap()).add(id);
+        }
+        if (product.getPrice() != null) {
+            byPriceBucket[bucketOf(product.getPrice())].add(id);
+        }
+        if (product.getStock() != null && product.getStock() > 0) {
+            inStock.add(id);
+        }
+    }
+
+    private void remove(int id) {
+        ProductDTO existing = products.remove(id);
+        if (existing == null) {
+            return;
+        }
+        live.remove(id);
+        inStock.remove(id);
+        if (existing.getCategoryId() != null) {
+            RoaringBitmap category = byCategory.get(existing.getCategoryId());
+            if (category != null) {
+                category.remove(id);
+                if (category.isEmpty()) {
+                    byCategory.remove(existing.getCategoryId());
+                }
+            }
+        }
+        if (existing.getPrice() != null) {
+            byPriceBucket[bucketOf(existing.getPrice())].remove(id);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.ProductImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+    ProductImportResultDTO importCsv(InputStream input) throws IOException;
+    ProductImportResultDTO importNdjson(InputStream input) throws IOException;
+}
@@ -0,0 +1,307 @@
+package com.webshop.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webshop.app.dto.ImportRowErrorDTO;
+import com.webshop.app.dto.ProductImportResultDTO;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.model.Category;
+import com.webshop.app.repository.CategoryRepository;
+import com.webshop.app.utils.CsvRecordReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Skupni uvoz proizvoda: ulaz se čita zapis po zapis, a valjani retci se upisuju JDBC batchevima.
+// Za stvarne višeredne INSERT-e na MySQL-u JDBC URL treba imati rewriteBatchedStatements=true.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO product (name, description, price, image_url, stock, category_id, deleted) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false)";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // name, description i image_url su VARCHAR(255)
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.image.default-image}")
+    private String defaultImageUrl;
+
+    @Override
+    public ProductImportResultDTO importCsv(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+
+        try (CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = reader.next();
+            if (header == null) {
+                return run.finish();
+            }
+
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(), i);
+            }
+            if (!columns.containsKey("name") || !columns.containsKey("price")) {
+                throw new IllegalArgumentException("CSV zaglavlje mora sadržavati barem stupce name i price.");
+            }
+
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                run.accept(reader.getRecordLineNumber(), new ImportRow(
+                        column(record, columns, "name"),
+                        column(record, columns, "description"),
+                        column(record, columns, "price"),
+                        column(record, columns, "stock"),
+                        column(record, columns, "categoryid"),
+                        column(record, columns, "categoryname"),
+                        column(record, columns, "imageurl")
+                ));
+            }
+        }
+        return run.finish();
+    }
+
+    @Override
+    public ProductImportResultDTO importNdjson(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    run.malformed(lineNumber, "Neispravan JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                run.accept(lineNumber, new ImportRow(
+                        text(node, "name"),
+                        text(node, "description"),
+                        text(node, "price"),
+                        text(node, "stock"),
+                        text(node, "categoryId"),
+                        text(node, "categoryName"),
+                        text(node, "imageUrl")
+                ));
+            }
+        }
+        return run.finish();
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private record ImportRow(String name, String description, String price, String stock,
+                             String categoryId, String categoryName, String imageUrl) {
+    }
+
+    // Stanje jednog uvoza: trenutni batch, brojači i prijavljene greške po retku
+    private class ImportRun {
+
+        private final long startedAt = System.currentTimeMillis();
+        private final Set<Integer> categoryIds = new HashSet<>();
+        private final Map<String, Integer> categoryIdsByName = new HashMap<>();
+
+        private final List<Object[]> batch = new ArrayList<>(batchSize);
+        private final List<Long> batchLines = new ArrayList<>(batchSize);
+        private final List<ImportRowErrorDTO> errors = new ArrayList<>();
+        private long totalRows;
+        private long imported;
+        private long failed;
+
+        private ImportRun() {
+            // Kategorije se učitavaju jednom po uvozu umjesto findById po retku
+            for (Category category : categoryRepository.findAll()) {
+                categoryIds.add(category.getId());
+                if (category.getName() != null) {
+                    categoryIdsByName.put(category.getName().trim().toLowerCase(), category.getId());
+                }
+            }
+        }
+
+        private void accept(long line, ImportRow row) {
+            totalRows++;
+            Object[] params;
+            try {
+                params = validate(row);
+            } catch (IllegalArgumentException e) {
+                reject(line, e.getMessage());
+                return;
+            }
+
+            batch.add(params);
+            batchLines.add(line);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void malformed(long line, String message) {
+            totalRows++;
+            reject(line, message);
+        }
+
+        private void reject(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowErrorDTO(line, message));
+            }
+        }
+
+        private Object[] validate(ImportRow row) {
+            if (row.name() == null || row.name().isBlank()) {
+                throw new IllegalArgumentException("Naziv je obavezan.");
+            }
+            checkLength(row.name().trim(), "Naziv");
+            checkLength(row.description(), "Opis");
+            checkLength(row.imageUrl(), "URL slike");
+
+            BigDecimal price;
+            try {
+                price = new BigDecimal(Objects.requireNonNull(row.price(), "Cijena je obavezna."));
+            } catch (NullPointerException e) {
+                throw new IllegalArgumentException(e.getMessage());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Neispravna cijena: " + row.price());
+            }
+            if (price.signum() < 0) {
+                throw new IllegalArgumentException("Cijena ne smije biti negativna.");
+            }
+
+            int stock = 0;
+            if (row.stock() != null) {
+                try {
+                    stock = Integer.parseInt(row.stock());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Neispravna zaliha: " + row.stock());
+                }
+                if (stock < 0) {
+                    throw new IllegalArgumentException("Zaliha ne smije biti negativna.");
+                }
+            }
+
+            return new Object[]{
+                    row.name().trim(),
+                    row.description(),
+                    price,
+                    row.imageUrl() != null ? row.imageUrl() : defaultImageUrl,
+                    stock,
+                    resolveCategory(row)
+            };
+        }
+
+        private void checkLength(String value, String field) {
+            if (value != null && value.length() > MAX_TEXT_LENGTH) {
+                throw new IllegalArgumentException(field + " je dulji od " + MAX_TEXT_LENGTH + " znakova.");
+            }
+        }
+
+        private Integer resolveCategory(ImportRow row) {
+            if (row.categoryId() != null) {
+                Integer id;
+                try {
+                    id = Integer.valueOf(row.categoryId());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Neispravan ID kategorije: " + row.categoryId());
+                }
+                if (!categoryIds.contains(id)) {
+                    throw new IllegalArgumentException("Kategorija ne postoji, ID: " + id);
+                }
+                return id;
+            }
+            if (row.categoryName() != null) {
+                Integer id = categoryIdsByName.get(row.categoryName().trim().toLowerCase());
+                if (id == null) {
+                    throw new IllegalArgumentException("Kategorija ne postoji: " + row.categoryName());
+                }
+                return id;
+            }
+            throw new IllegalArgumentException("Kategorija je obavezna (categoryId ili categoryName).");
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+                imported += batch.size();
+            } catch (DataAccessException e) {
+                // Batch je vraćen u cijelosti; retci se upisuju pojedinačno, pa se odbijaju samo oni koje baza ne prima
+                log.warn("Batch uvoza proizvoda nije upisan ({} redaka), upis redak po redak: {}",
+                        batch.size(), e.getMessage());
+                flushRowByRow();
+            }
+            batch.clear();
+            batchLines.clear();
+        }
+
+        private void flushRowByRow() {
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, batch.get(i));
+                    imported++;
+                } catch (DataAccessException e) {
+                    reject(batchLines.get(i), "Upis retka nije uspio: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        private ProductImportResultDTO finish() {
+            flush();
+            if (imported > 0) {
+                eventPublisher.publishEvent(new ProductsBulkChangedEvent(this, null));
+            }
+            long duration = System.currentTimeMillis() - startedAt;
+            log.info("Uvoz proizvoda završen: {} redaka, {} upisano, {} odbijeno, {} ms",
+                    totalRows, imported, failed, duration);
+            return new ProductImportResultDTO(totalRows, imported, failed, errors,
+                    failed > errors.size(), duration);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.dto.ProductSearchResultDTO;
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.repository.ProductRepository;
+import com.webshop.app.utils.SearchTokenizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Invertirani indeks nad nazivom i opisom proizvoda; upiti se izvršavaju u memoriji bez pristupa bazi
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_PENALTY = 0.7;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Posting>> postings = new TreeMap<>();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private double totalLength = 0;
+
+    // Promjene koje stignu dok se proizvodi čitaju iz baze: upit ih možda nije vidio,
+    // pa se primjenjuju i nakon punjenja indeksa. Sve se čuva pod write lockom.
+    private int rebuildsInProgress;
+    private List<ProductDTO> pendingChanges;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress++ == 0) {
+                pendingChanges = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<ProductDTO> products;
+        try {
+            products = productRepository.findProductViews(Sort.by("id"));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                finishRebuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            products.forEach(this::addDocument);
+            pendingChanges.forEach(this::upsert);
+            finishRebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indeks pretraživanja izgrađen: {} proizvoda, {} pojmova", products.size(), postings.size());
+    }
+
+    private void finishRebuild() {
+        if (--rebuildsInProgress == 0) {
+            pendingChanges = null;
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        applyChanges(List.of(event.getProduct()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.isDeleted()) {
+            return;
+        }
+        // Naziv kategorije se vraća u rezultatima, pa osvježavamo spremljene DTO-ove te kategorije
+        List<ProductDTO> products = productRepository.findProductViewsByCategoryId(
+                event.getCategoryId().intValue(), Sort.by("id"));
+
+        lock.writeLock().lock();
+        try {
+            // Svježi DTO-ovi iz baze - tijekom izgradnje se primjenjuju kao i ostale promjene
+            if (rebuildsInProgress > 0) {
+                pendingChanges.addAll(products);
+            }
+            for (ProductDTO product : products) {
+                IndexedProduct indexed = documents.get(product.getId());
+                if (indexed != null) {
+                    indexed.product = product;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        if (event.getProductIds() == null) {
+            rebuild();
+            return;
+        }
+        applyChanges(productRepository.findProductViewsByIdIn(event.getProductIds()));
+    }
+
+    private void applyChanges(List<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress > 0) {
+                pendingChanges.addAll(products);
+            }
+            products.forEach(this::upsert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ProductSearchResultDTO search(String query, Long categoryId, int limit) {
+        List<String> queryTokens = SearchTokenizer.tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return new ProductSearchResultDTO(query, 0, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String token : queryTokens) {
+                Map<Long, Double> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Svaka riječ upita mora se pojaviti (AND)
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+
+            List<Map.Entry<Long, Double>> hits = new ArrayList<>();
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                if (categoryId == null
+                        || categoryId.equals(documents.get(entry.getKey()).product.getCategoryId())) {
+                    hits.add(entry);
+                }
+            }
+            hits.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.<Long, Double>comparingByKey()));
+
+            List<ProductDTO> items = hits.stream()
+                    .limit(limit)
+                    .map(entry -> documents.get(entry.getKey()).product)
+                    .toList();
+            return new ProductSearchResultDTO(query, hits.size(), items);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> scoreToken(String token) {
+        Map<Long, Double> tokenScores = new HashMap<>();
+
+        Map<Long, Posting> exact = postings.get(token);
+        if (exact != null) {
+            accumulate(tokenScores, exact, 1.0);
+        }
+
+        int expansions = 0;
+        for (Map.Entry<String, Map<Long, Posting>> entry
+                : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            accumulate(tokenScores, entry.getValue(), PREFIX_PENALTY);
+        }
+        return tokenScores;
+    }
+
+    private void accumulate(Map<Long, Double> tokenScores, Map<Long, Posting> termPostings, double weight) {
+        int documentCount = documents.size();
+        double averageLength = documentCount == 0 ? 1 : totalLength / documentCount;
+        double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+
+        for (Map.Entry<Long, Posting> entry : termPostings.entrySet()) {
+            IndexedProduct document = documents.get(entry.getKey());
+            double tf = NAME_WEIGHT * entry.getValue().nameFrequency + entry.getValue().descriptionFrequency;
+            double norm = K1 * (1 - B + B * document.length / averageLength);
+            double score = weight * idf * (tf * (K1 + 1)) / (tf + norm);
+            // Za istu riječ upita uzimamo najbolji pogodak, a ne zbroj svih proširenja prefiksa
+            tokenScores.merge(entry.getKey(), score, Math::max);
+        }
+    }
+
+    private void upsert(ProductDTO product) {
+        removeDocument(product.getId());
+        if (!product.isDeleted()) {
+            addDocument(product);
+        }
+    }
+
+    private void addDocument(ProductDTO product) {
+        Map<String, Posting> terms = new HashMap<>();
+        for (String token : SearchTokenizer.tokenize(product.getName())) {
+            terms.computeIfAbsent(token, t -> new Posting()).nameFrequency++;
+        }
+        for (String token : SearchTokenizer.tokenize(product.getDescription())) {
+            terms.computeIfAbsent(token, t -> new Posting()).descriptionFrequency++;
+        }
+
+        IndexedProduct document = new IndexedProduct(product, terms);
+        for (Posting posting : terms.values()) {
+            document.length += NAME_WEIGHT * posting.nameFrequency + posting.descriptionFrequency;
+        }
+        for (Map.Entry<String, Posting> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(product.getId(), term.getValue());
+        }
+
+        documents.put(product.getId(), document);
+        totalLength += document.length;
+    }
+
+    private void removeDocument(Long productId) {
+        IndexedProduct document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms.keySet()) {
+            Map<Long, Posting> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    private static final class Posting {
+        private int nameFrequency;
+        private int descriptionFrequency;
+    }
+
+    private static final class IndexedProduct {
+        private ProductDTO product;
+        private final Map<String, Posting> terms;
+        private double length;
+
+        private IndexedProduct(ProductDTO product, Map<String, Posting> terms) {
+            this.product = product;
+            this.terms = terms;
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package com.webshop.app.service;
 
+import com.webshop.app.dto.ProductBulkUpdateDTO;
+import com.webshop.app.dto.ProductBulkUpdateResultDTO;
 import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.dto.ProductFacetsDTO;
+import com.webshop.app.dto.ProductFilterDTO;
+import com.webshop.app.dto.ProductPageDTO;
+import com.webshop.app.dto.ProductSearchResultDTO;
+import com.webshop.app.dto.ProductSuggestionsDTO;
 import com.webshop.app.model.Product;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,4 +28,10 @@ public interface ProductService {
     ProductDTO saveProduct(ProductDTO productDTO, MultipartFile imageFile) throws IOException;
     List<ProductDTO> getAllProducts(String sortBy, String sortOrder);
     List<ProductDTO> getProductsByCategoryId(Integer categoryId, String sortBy, String sortOrder);
+    ProductPageDTO getProductsPage(Integer categoryId, String sortBy, String sortOrder, String cursor, Integer limit);
+    ProductSearchResultDTO searchProducts(String query, Long categoryId, Integer limit);
+    ProductSuggestionsDTO suggestProducts(String query, Integer limit);
+    ProductPageDTO getFilteredProductsPage(ProductFilterDTO filter, String sortBy, String sortOrder, String cursor, Integer limit);
+    ProductFacetsDTO getProductFacets(ProductFilterDTO filter);
+    ProductBulkUpdateResultDTO bulkUpdatePriceAndStock(List<ProductBulkUpdateDTO> updates);
 }
@@ -1,81 +1,156 @@
 package com.webshop.app.service;
 
+import com.webshop.app.dto.ProductBulkUpdateDTO;
+import com.webshop.app.dto.ProductBulkUpdateResultDTO;
 import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.dto.ProductFacetsDTO;
+import com.webshop.app.dto.ProductFilterDTO;
+import com.webshop.app.dto.ProductPageDTO;
+import com.webshop.app.dto.ProductSearchResultDTO;
+import com.webshop.app.dto.ProductSuggestionsDTO;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
 import com.webshop.app.exception.ResourceNotFoundException;
+import com.webshop.app.mapper.ProductMapper;
 import com.webshop.app.model.Category;
 import com.webshop.app.model.Product;
 import com.webshop.app.repository.CategoryRepository;
 import com.webshop.app.repository.ProductRepository;
+import com.webshop.app.utils.ProductCursor;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    // Djelomično ažuriranje: null cijena ili zaliha zadržava postojeću vrijednost
+    private static final String BULK_UPDATE_SQL =
+            "UPDATE product SET price = COALESCE(?, price), stock = COALESCE(?, stock) " +
+            "WHERE id = ? AND deleted = false";
+
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
     private final CategoryRepository categoryRepository;
-
-    @Value("${app.image.upload-dir}")
-    private String uploadDir;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final CatalogColumnStore catalogColumnStore;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ImageVariantProcessor imageVariantProcessor;
+    private final ImageStorageService imageStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.image.default-image}")
     private String defaultImageUrl;
 
+    @Value("${app.catalog.page-size:24}")
+    private int defaultPageSize;
+
+    @Value("${app.catalog.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.catalog.suggest.limit:8}")
+    private int defaultSuggestLimit;
+
+    @Value("${app.catalog.bulk-update.batch-size:500}")
+    private int bulkUpdateBatchSize;
+
 
 
     public ProductDTO getProductById(Integer productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Proizvod nije pronađen s ID-jem: " + productId));
-        return convertProductToDTO(product);
+        return productCache.getProduct(Long.valueOf(productId), () ->
+                productRepository.findProductViewById(Long.valueOf(productId))
+                        .orElseThrow(() -> new ResourceNotFoundException("Proizvod nije pronađen s ID-jem: " + productId)));
     }
 
     public ProductDTO saveProduct(ProductDTO productDTO, MultipartFile imageFile) throws IOException {
-        String imageUrl = processImageUpload(imageFile);
-        productDTO.setImageUrl(imageUrl);
-
+        // Kategorija se provjerava prije uploada, da neispravan zahtjev ništa ne zapiše na disk
         Product product = convertDTOToProduct(productDTO);
-        Product savedProduct = productRepository.save(product);
+        String imageUrl = processImageUpload(imageFile);
+        product.setImageUrl(imageUrl);
+
+        Product savedProduct;
+        try {
+            savedProduct = productRepository.save(product);
+        } catch (RuntimeException e) {
+            imageStorageService.discard(imageUrl);
+            throw e;
+        }
+        imageVariantProcessor.submit(imageUrl);
 
-        return convertProductToDTO(savedProduct);
+        ProductDTO savedDTO = convertProductToDTO(savedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(this, ProductChangedEvent.ChangeType.CREATED, savedDTO, null, null));
+        return savedDTO;
     }
 
     public ProductDTO updateProduct(Integer productId, ProductDTO productDTO, MultipartFile imageFile) throws IOException {
         Product existingProduct = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Proizvod nije pronađen s ID-jem: " + productId));
 
-        if (imageFile != null && !imageFile.isEmpty()) {
-            String imageUrl = processImageUpload(imageFile);
-            productDTO.setImageUrl(imageUrl);
-        } else {
-            productDTO.setImageUrl(existingProduct.getImageUrl());
-        }
-
+        String previousImageUrl = existingProduct.getImageUrl();
+        // save() spaja novo stanje u isti upravljani entitet, pa se staro stanje mora uzeti prije
+        Long previousCategoryId = categoryIdOf(existingProduct);
+        boolean wasDeleted = existingProduct.isDeleted();
         Product updatedProduct = convertDTOToProduct(productDTO);
         updatedProduct.setId(existingProduct.getId());
-        productRepository.save(updatedProduct);
+        boolean newImage = imageFile != null && !imageFile.isEmpty();
+        updatedProduct.setImageUrl(newImage ? processImageUpload(imageFile) : previousImageUrl);
+
+        try {
+            productRepository.save(updatedProduct);
+        } catch (RuntimeException e) {
+            if (newImage) {
+                imageStorageService.discard(updatedProduct.getImageUrl());
+            }
+            throw e;
+        }
+        if (newImage) {
+            imageVariantProcessor.submit(updatedProduct.getImageUrl());
+        }
+
+        ProductDTO updatedDTO = convertProductToDTO(updatedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(this, ProductChangedEvent.ChangeType.UPDATED,
+                updatedDTO, previousCategoryId, wasDeleted));
 
-        return convertProductToDTO(updatedProduct);
+        if (!Objects.equals(previousImageUrl, updatedDTO.getImageUrl())) {
+            imageStorageService.release(previousImageUrl);
+        }
+        return updatedDTO;
     }
 
     public void deleteProductById(Integer productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Proizvod nije pronađen"));
+        boolean wasDeleted = product.isDeleted();
 
         product.setDeleted(true);
         productRepository.save(product);
+
+        eventPublisher.publishEvent(new ProductChangedEvent(this, ProductChangedEvent.ChangeType.DELETED,
+                convertProductToDTO(product), categoryIdOf(product), wasDeleted));
     }
 
 
@@ -84,30 +159,15 @@ public class ProductServiceImpl implements ProductService {
             return defaultImageUrl;
         }
 
-        String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        Path filePath = uploadPath.resolve(fileName);
-        Files.copy(file.getInputStream(), filePath);
-
-        return "/" + fileName;
+        return imageStorageService.store(file);
     }
 
     public ProductDTO convertProductToDTO(Product product) {
-        ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
-        if (product.getCategory() != null) {
-            productDTO.setCategoryId((long) product.getCategory().getId());
-            productDTO.setCategoryName(product.getCategory().getName());
-        }
-        return productDTO;
+        return productMapper.toDTO(product);
     }
 
     public Product convertDTOToProduct(ProductDTO productDTO) {
-        Product product = modelMapper.map(productDTO, Product.class);
+        Product product = productMapper.toEntity(productDTO);
 
         if (productDTO.getCategoryId() != null) {
             Category category = categoryRepository.findById(Math.toIntExact(productDTO.getCategoryId()))
@@ -118,38 +178,236 @@ public class ProductServiceImpl implements ProductService {
     }
 
     public List<ProductDTO> getAllProducts(String sortBy, String sortOrder) {
-        List<Product> products;
+        if (catalogColumnStore.isLoaded()) {
+            return catalogColumnStore.list(null, resolveCursorMode(sortBy, sortOrder));
+        }
+        return productCache.getListing(ProductCache.listingKey(null, "list", sortBy, sortOrder),
+                () -> loadAllProducts(sortBy, sortOrder));
+    }
 
-        if (sortBy != null && sortBy.equals("price")) {
-            Sort sort = sortOrder != null && sortOrder.equals("desc") ?
-                    Sort.by("price").descending() :
-                    Sort.by("price").ascending();
+    private List<ProductDTO> loadAllProducts(String sortBy, String sortOrder) {
+        return productRepository.findProductViews(resolveSort(sortBy, sortOrder));
+    }
 
-            products = productRepository.findByDeletedFalse(sort);
-        } else {
-            products = productRepository.findByDeletedFalse();
+    public List<ProductDTO> getProductsByCategoryId(Integer categoryId, String sortBy, String sortOrder) {
+        if (catalogColumnStore.isLoaded()) {
+            return catalogColumnStore.list(categoryId, resolveCursorMode(sortBy, sortOrder));
         }
+        return productCache.getListing(ProductCache.listingKey(categoryId, "list", sortBy, sortOrder),
+                () -> loadProductsByCategoryId(categoryId, sortBy, sortOrder));
+    }
 
-        return products.stream()
-                .map(this::convertProductToDTO)
-                .toList();
+    private List<ProductDTO> loadProductsByCategoryId(Integer categoryId, String sortBy, String sortOrder) {
+        return productRepository.findProductViewsByCategoryId(categoryId, resolveSort(sortBy, sortOrder));
     }
 
-    public List<ProductDTO> getProductsByCategoryId(Integer categoryId, String sortBy, String sortOrder) {
-        List<Product> products;
+    public ProductPageDTO getProductsPage(Integer categoryId, String sortBy, String sortOrder, String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        String mode = resolveCursorMode(sortBy, sortOrder);
+        ProductCursor after = decodeCursor(cursor, mode);
+
+        // Dok se kolumnarni katalog ne učita (start aplikacije), stranice dolaze iz baze preko cachea
+        if (catalogColumnStore.isLoaded()) {
+            return catalogColumnStore.page(categoryId, mode, after, pageSize);
+        }
+        return productCache.getListing(ProductCache.listingKey(categoryId, "page", mode, cursor, pageSize),
+                () -> loadProductsPage(categoryId, mode, after, pageSize));
+    }
+
+    private ProductPageDTO loadProductsPage(Integer categoryId, String mode, ProductCursor after, int pageSize) {
+
+        BigDecimal lastPrice = after != null ? after.getLastPrice() : null;
+        Long lastId = after != null ? after.getLastId() : null;
+        // Dohvaćamo jedan više da znamo postoji li sljedeća stranica bez COUNT upita
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<ProductDTO> products = switch (mode) {
+            case ProductCursor.MODE_PRICE_ASC ->
+                    productRepository.findPageByPriceAscAfter(categoryId, lastPrice, lastId, pageable);
+            case ProductCursor.MODE_PRICE_DESC ->
+                    productRepository.findPageByPriceDescAfter(categoryId, lastPrice, lastId, pageable);
+            default -> productRepository.findPageAfterId(categoryId, lastId, pageable);
+        };
+
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            ProductDTO last = products.get(products.size() - 1);
+            nextCursor = new ProductCursor(mode, last.getPrice(), last.getId()).encode();
+        }
 
+        return new ProductPageDTO(products, nextCursor, pageSize, hasMore);
+    }
+
+    public ProductSearchResultDTO searchProducts(String query, Long categoryId, Integer limit) {
+        return productSearchIndex.search(query, categoryId, resolvePageSize(limit));
+    }
+
+    public ProductSuggestionsDTO suggestProducts(String query, Integer limit) {
+        return productSuggestIndex.suggest(query, limit == null || limit <= 0 ? defaultSuggestLimit : limit);
+    }
+
+    public ProductPageDTO getFilteredProductsPage(ProductFilterDTO filter, String sortBy, String sortOrder,
+                                                  String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        String mode = resolveCursorMode(sortBy, sortOrder);
+        ProductCursor after = decodeCursor(cursor, mode);
+
+        List<ProductDTO> matches = productFacetIndex.filter(filter);
+        Comparator<ProductDTO> order = cursorOrder(mode);
+        if (!ProductCursor.MODE_ID.equals(mode)) {
+            matches.sort(order);
+        }
+
+        int from = 0;
+        if (after != null) {
+            ProductDTO probe = new ProductDTO();
+            probe.setId(after.getLastId());
+            probe.setPrice(after.getLastPrice());
+            // Poredak je potpun (ID je jedinstven), pa se početak stranice traži binarno
+            int position = Collections.binarySearch(matches, probe, order);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+
+        int to = Math.min(from + pageSize, matches.size());
+        List<ProductDTO> items = List.copyOf(matches.subList(from, to));
+        boolean hasMore = to < matches.size();
+
+        String nextCursor = null;
+        if (hasMore) {
+            ProductDTO last = items.get(items.size() - 1);
+            nextCursor = new ProductCursor(mode, last.getPrice(), last.getId()).encode();
+        }
+        return new ProductPageDTO(items, nextCursor, pageSize, hasMore);
+    }
+
+    public ProductFacetsDTO getProductFacets(ProductFilterDTO filter) {
+        return productFacetIndex.facets(filter);
+    }
+
+    public ProductBulkUpdateResultDTO bulkUpdatePriceAndStock(List<ProductBulkUpdateDTO> updates) {
+        long startedAt = System.currentTimeMillis();
+        // Isti ID dvaput mogao bi završiti u različitim batchevima i brojati se kao dvije izmjene
+        Set<Long> seen = new HashSet<>();
+        for (ProductBulkUpdateDTO update : updates) {
+            validateBulkUpdate(update);
+            if (!seen.add(update.getId())) {
+                throw new IllegalArgumentException("Proizvod " + update.getId() + " se u zahtjevu pojavljuje više puta.");
+            }
+        }
+
+        int updated = 0;
+        List<Long> notFound = new ArrayList<>();
+        for (int from = 0; from < updates.size(); from += bulkUpdateBatchSize) {
+            List<ProductBulkUpdateDTO> chunk = updates.subList(from, Math.min(from + bulkUpdateBatchSize, updates.size()));
+
+            List<Long> changedIds = transactionTemplate.execute(status -> {
+                int[][] counts = jdbcTemplate.batchUpdate(
+                        BULK_UPDATE_SQL, chunk, chunk.size(), (ps, update) -> {
+                            ps.setObject(1, update.getPrice(), Types.DECIMAL);
+                            ps.setObject(2, update.getStock(), Types.INTEGER);
+                            ps.setLong(3, update.getId());
+                        });
+
+                List<Long> changed = new ArrayList<>(chunk.size());
+                List<Long> unknown = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    int count = counts[0][i];
+                    if (count > 0) {
+                        changed.add(chunk.get(i).getId());
+                    } else if (count == Statement.SUCCESS_NO_INFO) {
+                        unknown.add(chunk.get(i).getId());
+                    }
+                }
+                // Uz rewriteBatchedStatements driver ne vraća broj redaka po naredbi -
+                // postojanje se provjerava istim uvjetom kao u UPDATE-u, u istoj transakciji
+                if (!unknown.isEmpty()) {
+                    changed.addAll(findActiveIds(unknown));
+                }
+                return changed;
+            });
+
+            Set<Long> changedSet = new HashSet<>(changedIds);
+            for (ProductBulkUpdateDTO update : chunk) {
+                if (!changedSet.contains(update.getId())) {
+                    notFound.add(update.getId());
+                }
+            }
+            updated += changedIds.size();
+
+            // Jedna invalidacija cacheva i indeksa po batchu, ne po proizvodu
+            if (!changedIds.isEmpty()) {
+                eventPublisher.publishEvent(new ProductsBulkChangedEvent(this, changedIds));
+            }
+        }
+        return new ProductBulkUpdateResultDTO(updates.size(), updated, notFound,
+                System.currentTimeMillis() - startedAt);
+    }
+
+    private List<Long> findActiveIds(List<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.queryForList("SELECT id FROM product WHERE id IN (" + placeholders + ") AND deleted = false",
+                Long.class, ids.toArray());
+    }
+
+    private void validateBulkUpdate(ProductBulkUpdateDTO update) {
+        if (update.getId() == null) {
+            throw new IllegalArgumentException("ID proizvoda je obavezan.");
+        }
+        if (update.getPrice() == null && update.getStock() == null) {
+            throw new IllegalArgumentException("Za proizvod " + update.getId() + " nije zadana ni cijena ni zaliha.");
+        }
+        if (update.getPrice() != null && update.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("Cijena ne smije biti negativna (proizvod " + update.getId() + ").");
+        }
+        if (update.getStock() != null && update.getStock() < 0) {
+            throw new IllegalArgumentException("Zaliha ne smije biti negativna (proizvod " + update.getId() + ").");
+        }
+    }
+
+    private int resolvePageSize(Integer limit) {
+        return limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+    }
+
+    private ProductCursor decodeCursor(String cursor, String mode) {
+        return cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor, mode) : null;
+    }
+
+    // Isti redoslijed kao keyset upiti u ProductRepository: (price, id) uzlazno ili silazno, inače id
+    private Comparator<ProductDTO> cursorOrder(String mode) {
+        Comparator<ProductDTO> byPrice = Comparator
+                .comparing((ProductDTO p) -> p.getPrice() != null ? p.getPrice() : BigDecimal.ZERO)
+                .thenComparing(ProductDTO::getId);
+        return switch (mode) {
+            case ProductCursor.MODE_PRICE_ASC -> byPrice;
+            case ProductCursor.MODE_PRICE_DESC -> byPrice.reversed();
+            default -> Comparator.comparing(ProductDTO::getId);
+        };
+    }
+
+    private Long categoryIdOf(Product product) {
+        return product.getCategory() != null ? (long) product.getCategory().getId() : null;
+    }
+
+    private Sort resolveSort(String sortBy, String sortOrder) {
         if (sortBy != null && sortBy.equals("price")) {
-            Sort sort = sortOrder != null && sortOrder.equals("desc") ?
+            return sortOrder != null && sortOrder.equals("desc") ?
                     Sort.by("price").descending() :
                     Sort.by("price").ascending();
-
-            products = productRepository.findByCategoryIdAndDeletedFalse(categoryId, sort);
-        } else {
-            products = productRepository.findByCategoryIdAndDeletedFalse(categoryId);
         }
+        return Sort.by("id");
+    }
 
-        return products.stream()
-                .map(this::convertProductToDTO)
-                .toList();
+    private String resolveCursorMode(String sortBy, String sortOrder) {
+        if (sortBy != null && sortBy.equals("price")) {
+            return sortOrder != null && sortOrder.equals("desc") ?
+                    ProductCursor.MODE_PRICE_DESC :
+                    ProductCursor.MODE_PRICE_ASC;
+        }
+        return ProductCursor.MODE_ID;
     }
 }
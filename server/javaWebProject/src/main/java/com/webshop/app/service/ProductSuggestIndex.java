@@ -0,0 +1,450 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.dto.ProductSuggestionsDTO;
+import com.webshop.app.dto.SuggestionDTO;
+import com.webshop.app.event.CategoryChangedEvent;
+import com.webshop.app.event.ProductChangedEvent;
+import com.webshop.app.event.ProductsBulkChangedEvent;
+import com.webshop.app.repository.CategoryRepository;
+import com.webshop.app.repository.ProductRepository;
+import com.webshop.app.utils.SearchTokenizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Prefiksno stablo (trie) nad normaliziranim nazivima proizvoda i kategorija za prijedloge pri tipkanju.
+// Svaki čvor čuva unaprijed izračunatih najboljih N prijedloga svog podstabla, pa je upit samo
+// spuštanje kroz onoliko čvorova koliko upit ima znakova.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    // Dublje od ovoga čvorovi se ne granaju; dulji upiti filtriraju zapise zadnjeg čvora
+    private static final int MAX_DEPTH = 16;
+
+    // Proizvodi po zalihi, kategorije po broju aktivnih proizvoda; zatim kraći naziv pa ID
+    private static final Comparator<Suggestion> ORDER = Comparator
+            .comparingLong((Suggestion s) -> s.weight).reversed()
+            .thenComparingInt(s -> s.name.length())
+            .thenComparingLong(s -> s.id);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PrefixTrie productTrie = new PrefixTrie();
+    private final PrefixTrie categoryTrie = new PrefixTrie();
+    private final Map<Long, Suggestion> products = new HashMap<>();
+    private final Map<Long, Suggestion> categories = new HashMap<>();
+
+    // Promjene koje stignu dok se proizvodi čitaju iz baze: upit ih možda nije vidio,
+    // pa se primjenjuju i nakon punjenja stabala. Sve se čuva pod write lockom.
+    private int rebuildsInProgress;
+    private List<ProductDTO> pendingChanges;
+    private Map<Long, String> pendingCategoryNames;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress++ == 0) {
+                pendingChanges = new ArrayList<>();
+                pendingCategoryNames = new HashMap<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<ProductDTO> all;
+        try {
+            all = productRepository.findProductViews(Sort.by("id"));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                finishRebuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            productTrie.clear();
+            categoryTrie.clear();
+            products.clear();
+            categories.clear();
+
+            // Najbolji prijedlozi po čvorovima računaju se jednom, nakon umetanja svih ključeva
+            all.forEach(product -> indexProduct(product, false));
+            for (Suggestion category : categories.values()) {
+                category.keys.forEach(key -> categoryTrie.add(key, category, false));
+            }
+            productTrie.recomputeAll();
+            categoryTrie.recomputeAll();
+
+            pendingChanges.forEach(this::reindex);
+            pendingCategoryNames.forEach(this::renameCategory);
+            finishRebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indeks prijedloga izgrađen: {} proizvoda, {} kategorija", products.size(), categories.size());
+    }
+
+    private void finishRebuild() {
+        if (--rebuildsInProgress == 0) {
+            pendingChanges = null;
+            pendingCategoryNames = null;
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        applyChanges(List.of(event.getProduct()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        if (event.getProductIds() == null) {
+            rebuild();
+            return;
+        }
+        applyChanges(productRepository.findProductViewsByIdIn(event.getProductIds()));
+    }
+
+    private void applyChanges(List<ProductDTO> changed) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildsInProgress > 0) {
+                pendingChanges.addAll(changed);
+            }
+            changed.forEach(this::reindex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.isDeleted()) {
+            return;
+        }
+        categoryRepository.findById(event.getCategoryId().intValue()).ifPresent(category -> {
+            lock.writeLock().lock();
+            try {
+                if (rebuildsInProgress > 0) {
+                    pendingCategoryNames.put(event.getCategoryId(), category.getName());
+                }
+                renameCategory(event.getCategoryId(), category.getName());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void renameCategory(Long categoryId, String name) {
+        Suggestion suggestion = categories.get(categoryId);
+        if (suggestion != null && !suggestion.name.equals(name)) {
+            suggestion.keys.forEach(key -> categoryTrie.remove(key, suggestion));
+            suggestion.name = name;
+            suggestion.keys = keysOf(name);
+            suggestion.keys.forEach(key -> categoryTrie.add(key, suggestion, true));
+        }
+    }
+
+    public ProductSuggestionsDTO suggest(String query, int limit) {
+        String prefix = String.join(" ", SearchTokenizer.tokenize(query));
+        if (prefix.isEmpty()) {
+            return new ProductSuggestionsDTO(query, List.of(), List.of());
+        }
+        int size = Math.min(limit, MAX_SUGGESTIONS);
+
+        lock.readLock().lock();
+        try {
+            return new ProductSuggestionsDTO(query,
+                    toDTOs(productTrie.query(prefix, size)),
+                    toDTOs(categoryTrie.query(prefix, size)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reindex(ProductDTO product) {
+        unindexProduct(product.getId());
+        if (!product.isDeleted()) {
+            indexProduct(product, true);
+        }
+    }
+
+    private void indexProduct(ProductDTO product, boolean incremental) {
+        if (product.getName() == null) {
+            return;
+        }
+        long stock = product.getStock() != null ? Math.max(product.getStock(), 0) : 0;
+        Suggestion suggestion = new Suggestion(product.getId(), product.getName(), product.getCategoryId(), stock);
+        products.put(product.getId(), suggestion);
+        suggestion.keys.forEach(key -> productTrie.add(key, suggestion, incremental));
+
+        if (product.getCategoryId() != null) {
+            adjustCategory(product.getCategoryId(), product.getCategoryName(), 1, incremental);
+        }
+    }
+
+    private void unindexProduct(Long productId) {
+        Suggestion suggestion = products.remove(productId);
+        if (suggestion == null) {
+            return;
+        }
+        suggestion.keys.forEach(key -> productTrie.remove(key, suggestion));
+        if (suggestion.categoryId != null) {
+            adjustCategory(suggestion.categoryId, null, -1, true);
+        }
+    }
+
+    // Težina kategorije je dio poretka, pa se pri promjeni kategorija vadi iz stabla i ponovno umeće
+    private void adjustCategory(Long categoryId, String name, int delta, boolean incremental) {
+        Suggestion category = categories.get(categoryId);
+        if (category == null) {
+            if (delta < 0 || name == null) {
+                return;
+            }
+            category = new Suggestion(categoryId, name, null, 0);
+            categories.put(categoryId, category);
+        } else if (incremental) {
+            Suggestion existing = category;
+            existing.keys.forEach(key -> categoryTrie.remove(key, existing));
+        }
+
+        category.weight += delta;
+        if (category.weight <= 0) {
+            categories.remove(categoryId);
+            return;
+        }
+        if (incremental) {
+            Suggestion updated = category;
+            updated.keys.forEach(key -> categoryTrie.add(key, updated, true));
+        }
+    }
+
+    // Ključ za svaki početak riječi, tako da "gal" pronalazi i "Samsung Galaxy"
+    private static List<String> keysOf(String name) {
+        List<String> tokens = SearchTokenizer.tokenize(name);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private static List<SuggestionDTO> toDTOs(List<Suggestion> suggestions) {
+        return suggestions.stream()
+                .map(s -> new SuggestionDTO(s.id, s.name))
+                .toList();
+    }
+
+    private static final class Suggestion {
+        private final long id;
+        private final Long categoryId;
+        private String name;
+        private List<String> keys;
+        private long weight;
+
+        private Suggestion(long id, String name, Long categoryId, long weight) {
+            this.id = id;
+            this.name = name;
+            this.categoryId = categoryId;
+            this.weight = weight;
+            this.keys = keysOf(name);
+        }
+    }
+
+    private record Keyed(String key, Suggestion suggestion) {
+    }
+
+    private static final class PrefixTrie {
+
+        private static final Suggestion[] NONE = new Suggestion[0];
+
+        private Node root = new Node();
+
+        private void clear() {
+            root = new Node();
+        }
+
+        private void add(String key, Suggestion suggestion, boolean recompute) {
+            int depth = Math.min(key.length(), MAX_DEPTH);
+            Node[] path = new Node[depth + 1];
+            path[0] = root;
+            for (int i = 0; i < depth; i++) {
+                path[i + 1] = path[i].childOrCreate(key.charAt(i));
+            }
+
+            Node node = path[depth];
+            if (node.entries == null) {
+                node.entries = new ArrayList<>(1);
+            }
+            node.entries.add(new Keyed(key, suggestion));
+
+            if (recompute) {
+                for (int i = depth; i >= 0; i--) {
+                    path[i].recompute();
+                }
+            }
+        }
+
+        private void remove(String key, Suggestion suggestion) {
+            int depth = Math.min(key.length(), MAX_DEPTH);
+            Node[] path = new Node[depth + 1];
+            path[0] = root;
+            for (int i = 0; i < depth; i++) {
+                path[i + 1] = path[i].child(key.charAt(i));
+                if (path[i + 1] == null) {
+                    return;
+                }
+            }
+
+            Node node = path[depth];
+            if (node.entries != null) {
+                node.entries.removeIf(entry -> entry.suggestion() == suggestion && entry.key().equals(key));
+                if (node.entries.isEmpty()) {
+                    node.entries = null;
+                }
+            }
+
+            for (int i = depth; i >= 0; i--) {
+                if (i > 0 && path[i].isEmpty()) {
+                    path[i - 1].removeChild(key.charAt(i - 1));
+                } else {
+                    path[i].recompute();
+                }
+            }
+        }
+
+        private List<Suggestion> query(String prefix, int limit) {
+            Node node = root;
+            int depth = Math.min(prefix.length(), MAX_DEPTH);
+            for (int i = 0; i < depth && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            if (prefix.length() <= MAX_DEPTH) {
+                return Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length));
+            }
+            // Upit dulji od dubine stabla: zapisi zadnjeg čvora filtriraju se po cijelom ključu
+            List<Suggestion> matches = new ArrayList<>();
+            if (node.entries != null) {
+                for (Keyed entry : node.entries) {
+                    if (entry.key().startsWith(prefix)) {
+                        matches.add(entry.suggestion());
+                    }
+                }
+            }
+            return best(matches, limit);
+        }
+
+        private void recomputeAll() {
+            recomputeSubtree(root);
+        }
+
+        private void recomputeSubtree(Node node) {
+            for (Node child : node.children) {
+                recomputeSubtree(child);
+            }
+            node.recompute();
+        }
+
+        private static List<Suggestion> best(List<Suggestion> candidates, int limit) {
+            candidates.sort(ORDER);
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, candidates.size()));
+            for (Suggestion candidate : candidates) {
+                if (result.size() == limit) {
+                    break;
+                }
+                // Isti proizvod može doći iz više ključeva (više riječi naziva)
+                if (!result.contains(candidate)) {
+                    result.add(candidate);
+                }
+            }
+            return result;
+        }
+
+        private static final class Node {
+            private char[] labels = new char[0];
+            private Node[] children = new Node[0];
+            private List<Keyed> entries;
+            private Suggestion[] top = NONE;
+
+            private Node child(char label) {
+                int index = Arrays.binarySearch(labels, label);
+                return index >= 0 ? children[index] : null;
+            }
+
+            private Node childOrCreate(char label) {
+                int index = Arrays.binarySearch(labels, label);
+                if (index >= 0) {
+                    return children[index];
+                }
+                int position = -index - 1;
+                char[] newLabels = new char[labels.length + 1];
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy(labels, 0, newLabels, 0, position);
+                System.arraycopy(children, 0, newChildren, 0, position);
+                System.arraycopy(labels, position, newLabels, position + 1, labels.length - position);
+                System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+                newLabels[position] = label;
+                newChildren[position] = new Node();
+                labels = newLabels;
+                children = newChildren;
+                return newChildren[position];
+            }
+
+            private void removeChild(char label) {
+                int index = Arrays.binarySearch(labels, label);
+                if (index < 0) {
+                    return;
+                }
+                char[] newLabels = new char[labels.length - 1];
+                Node[] newChildren = new Node[children.length - 1];
+                System.arraycopy(labels, 0, newLabels, 0, index);
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+                System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+                labels = newLabels;
+                children = newChildren;
+            }
+
+            private boolean isEmpty() {
+                return entries == null && children.length == 0;
+            }
+
+            private void recompute() {
+                List<Suggestion> candidates = new ArrayList<>();
+                if (entries != null) {
+                    entries.forEach(entry -> candidates.add(entry.suggestion()));
+                }
+                for (Node child : children) {
+                    Collections.addAll(candidates, child.top);
+                }
+                top = best(candidates, MAX_SUGGESTIONS).toArray(NONE);
+            }
+        }
+    }
+}
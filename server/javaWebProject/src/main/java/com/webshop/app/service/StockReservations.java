@@ -0,0 +1,162 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.ReservationRowDTO;
+import com.webshop.app.exception.InsufficientStockException;
+import com.webshop.app.model.OrderStatus;
+import com.webshop.app.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Rezervacije zalihe za narudžbe koje čekaju plaćanje (PayPal). Količina se rezervira pri kreiranju
+// narudžbe, a otpušta pri potvrdi (zaliha je tada već skinuta u bazi), otkazivanju ili isteku.
+// Brojači po proizvodu zaštićeni su prugastim lockovima - narudžbe nad različitim proizvodima ne čekaju jedna drugu.
+@Slf4j
+@Component
+public class StockReservations {
+
+    private static final int STRIPES = 64;
+
+    private final OrderRepository orderRepository;
+    private final Duration ttl;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // Mijenja se samo pod lockom pruge kojoj proizvod pripada
+    private final Map<Long, Integer> reserved = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> reservationsByOrder = new ConcurrentHashMap<>();
+
+    public StockReservations(OrderRepository orderRepository,
+                             @Value("${app.checkout.reservation-ttl-minutes:15}") long ttlMinutes) {
+        this.orderRepository = orderRepository;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Sve ili ništa: ako za bilo koji proizvod nema dovoljno nerezervirane zalihe, ništa se ne rezervira
+    public void reserve(Long orderId, Map<Long, Integer> quantities, Map<Long, Integer> stock) {
+        List<ReentrantLock> locks = lock(quantities);
+        try {
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                Long productId = line.getKey();
+                int available = stock.getOrDefault(productId, 0) - reserved.getOrDefault(productId, 0);
+                if (available < line.getValue()) {
+                    throw new InsufficientStockException(productId, "Insufficient stock for product: " + productId);
+                }
+            }
+            quantities.forEach((productId, quantity) -> reserved.merge(productId, quantity, Integer::sum));
+            reservationsByOrder.put(orderId, new Reservation(Map.copyOf(quantities), Instant.now().plus(ttl)));
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    // Potvrda: zaliha je već smanjena u bazi, rezervacija se samo zatvara
+    public void commit(Long orderId) {
+        release(orderId);
+    }
+
+    public boolean release(Long orderId) {
+        Reservation reservation = reservationsByOrder.remove(orderId);
+        if (reservation == null) {
+            return false;
+        }
+
+        List<ReentrantLock> locks = lock(reservation.quantities());
+        try {
+            reservation.quantities().forEach((productId, quantity) ->
+                    reserved.computeIfPresent(productId, (id, current) -> current > quantity ? current - quantity : null));
+        } finally {
+            unlock(locks);
+        }
+        return true;
+    }
+
+    public int reservedQuantity(Long productId) {
+        return reserved.getOrDefault(productId, 0);
+    }
+
+    public List<Long> expiredOrderIds() {
+        Instant now = Instant.now();
+        List<Long> expired = new ArrayList<>();
+        reservationsByOrder.forEach((orderId, reservation) -> {
+            if (reservation.expiresAt().isBefore(now)) {
+                expired.add(orderId);
+            }
+        });
+        return expired;
+    }
+
+    // Nakon restarta rezervacije se obnavljaju iz narudžbi u PENDING_PAYMENT; rok teče od datuma narudžbe
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Map<Long, Integer>> quantitiesByOrder = new HashMap<>();
+        Map<Long, Instant> expiryByOrder = new HashMap<>();
+        for (ReservationRowDTO row : orderRepository.findReservationRows(OrderStatus.PENDING_PAYMENT)) {
+            if (row.getProductId() == null) {
+                continue;
+            }
+            quantitiesByOrder.computeIfAbsent(row.getOrderId(), id -> new HashMap<>())
+                    .merge(row.getProductId(), row.getQuantity(), Integer::sum);
+            expiryByOrder.putIfAbsent(row.getOrderId(), row.getOrderDate() == null ? Instant.now().plus(ttl)
+                    : row.getOrderDate().atZone(ZoneId.systemDefault()).toInstant().plus(ttl));
+        }
+
+        // Server već prima zahtjeve: narudžba kreirana u međuvremenu već ima rezervaciju i ne broji se dvaput
+        int restored = 0;
+        for (Map.Entry<Long, Map<Long, Integer>> order : quantitiesByOrder.entrySet()) {
+            Map<Long, Integer> quantities = order.getValue();
+            List<ReentrantLock> locks = lock(quantities);
+            try {
+                Reservation reservation = new Reservation(Map.copyOf(quantities), expiryByOrder.get(order.getKey()));
+                if (reservationsByOrder.putIfAbsent(order.getKey(), reservation) == null) {
+                    quantities.forEach((productId, quantity) -> reserved.merge(productId, quantity, Integer::sum));
+                    restored++;
+                }
+            } finally {
+                unlock(locks);
+            }
+        }
+        if (restored > 0) {
+            log.info("Obnovljene rezervacije zalihe za {} narudžbi koje čekaju plaćanje", restored);
+        }
+    }
+
+    // Pruge se zaključavaju rastućim redom, pa se dvije rezervacije ne mogu međusobno blokirati
+    private List<ReentrantLock> lock(Map<Long, Integer> quantities) {
+        boolean[] needed = new boolean[STRIPES];
+        for (Long productId : quantities.keySet()) {
+            needed[Math.floorMod(Long.hashCode(productId), STRIPES)] = true;
+        }
+        List<ReentrantLock> locks = new ArrayList<>();
+        for (int i = 0; i < STRIPES; i++) {
+            if (needed[i]) {
+                stripes[i].lock();
+                locks.add(stripes[i]);
+            }
+        }
+        return locks;
+    }
+
+    private static void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private record Reservation(Map<Long, Integer> quantities, Instant expiresAt) {
+    }
+}
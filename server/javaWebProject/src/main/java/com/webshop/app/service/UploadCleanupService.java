@@ -0,0 +1,8 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.UploadCleanupReportDTO;
+
+public interface UploadCleanupService {
+
+    UploadCleanupReportDTO sweep(boolean dryRun);
+}
@@ -0,0 +1,191 @@
+package com.webshop.app.service;
+
+import com.webshop.app.dto.UploadCleanupReportDTO;
+import com.webshop.app.utils.ImageVariants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Čišćenje upload direktorija: datoteke na koje ne pokazuje nijedan proizvod (ni arhivirani)
+// ni kategorija, a starije su od grace perioda, premještaju se u .trash, odakle se brišu nakon
+// zadržavanja. Direktorij se čita iteratorom, bez učitavanja svih naziva odjednom.
+@Slf4j
+@Service
+public class UploadCleanupServiceImpl implements UploadCleanupService {
+
+    private static final String TRASH = ".trash";
+    private static final int MAX_REPORTED_ORPHANS = 1000;
+
+    private static final String REFERENCED_IMAGES_SQL =
+            "SELECT image_url FROM product WHERE image_url IS NOT NULL " +
+            "UNION SELECT image_url FROM product_archive WHERE image_url IS NOT NULL " +
+            "UNION SELECT image_url FROM category WHERE image_url IS NOT NULL";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ImageStorageService imageStorageService;
+    private final Path uploadPath;
+    private final Duration gracePeriod;
+    private final Duration trashRetention;
+
+    public UploadCleanupServiceImpl(DataSource dataSource,
+                                    ImageStorageService imageStorageService,
+                                    @Value("${app.image.upload-dir}") String uploadDir,
+                                    @Value("${app.image.gc.grace-hours:24}") long graceHours,
+                                    @Value("${app.image.gc.trash-retention-hours:72}") long trashRetentionHours) {
+        // MySQL driver uz fetch size MIN_VALUE vraća red po red umjesto cijelog rezultata
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.imageStorageService = imageStorageService;
+        this.uploadPath = Paths.get(uploadDir);
+        this.gracePeriod = Duration.ofHours(graceHours);
+        this.trashRetention = Duration.ofHours(trashRetentionHours);
+    }
+
+    @Scheduled(cron = "${app.image.gc.cron:0 0 4 * * *}")
+    public void scheduledSweep() {
+        UploadCleanupReportDTO report = sweep(false);
+        if (report.getOrphanedFiles() > 0 || report.getPurgedFromTrash() > 0) {
+            log.info("Čišćenje uploada: {} datoteka premješteno u smeće ({} B), {} trajno obrisano",
+                    report.getOrphanedFiles(), report.getOrphanedBytes(), report.getPurgedFromTrash());
+        }
+    }
+
+    @Override
+    public synchronized UploadCleanupReportDTO sweep(boolean dryRun) {
+        long startedAt = System.currentTimeMillis();
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        Sweep sweep = new Sweep(dryRun, cutoff, referencedFileNames());
+
+        if (Files.isDirectory(uploadPath)) {
+            sweep.scan(uploadPath, true);
+            for (ImageVariants.Size size : ImageVariants.Size.values()) {
+                sweep.scan(uploadPath.resolve(ImageVariants.DIRECTORY).resolve(size.folder()), false);
+            }
+        }
+        long purged = purgeTrash(dryRun, Instant.now().minus(trashRetention));
+
+        return new UploadCleanupReportDTO(dryRun, sweep.scanned, sweep.referenced.size(), sweep.orphaned,
+                sweep.orphanedBytes, purged, sweep.reported, sweep.orphaned > sweep.reported.size(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    // Nazivi originala i njihovih varijanti na koje pokazuje barem jedan redak; jedan streaming upit
+    private Set<String> referencedFileNames() {
+        Set<String> referenced = new HashSet<>();
+        streamingJdbcTemplate.query(REFERENCED_IMAGES_SQL, rs -> {
+            String fileName = ImageVariants.fileNameOf(rs.getString(1));
+            if (fileName != null) {
+                referenced.add(fileName);
+            }
+        });
+        return referenced;
+    }
+
+    private long purgeTrash(boolean dryRun, Instant expiry) {
+        Path trash = uploadPath.resolve(TRASH);
+        if (!Files.isDirectory(trash)) {
+            return 0;
+        }
+
+        long purged = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(trash)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry) && Files.getLastModifiedTime(entry).toInstant().isBefore(expiry)) {
+                    if (!dryRun) {
+                        Files.deleteIfExists(entry);
+                    }
+                    purged++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Pražnjenje smeća uploada nije uspjelo: {}", e.getMessage());
+        }
+        return purged;
+    }
+
+    private class Sweep {
+
+        private final boolean dryRun;
+        private final Instant cutoff;
+        private final Set<String> referenced;
+        private final Set<String> referencedVariants = new HashSet<>();
+        private final List<String> reported = new ArrayList<>();
+        private long scanned;
+        private long orphaned;
+        private long orphanedBytes;
+
+        private Sweep(boolean dryRun, Instant cutoff, Set<String> referenced) {
+            this.dryRun = dryRun;
+            this.cutoff = cutoff;
+            this.referenced = referenced;
+            referenced.forEach(fileName -> referencedVariants.add(ImageVariants.variantFileName(fileName)));
+        }
+
+        private void scan(Path directory, boolean originals) {
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    if (!attributes.isRegularFile()) {
+                        continue;
+                    }
+                    scanned++;
+
+                    String fileName = entry.getFileName().toString();
+                    // Privremene datoteke (.upload-*, .variant-*) ostaju samo nakon prekinutog zapisa
+                    boolean leftover = fileName.startsWith(".");
+                    boolean used = !leftover && (originals ? referenced.contains(fileName) : referencedVariants.contains(fileName));
+                    if (used || !attributes.lastModifiedTime().toInstant().isBefore(cutoff)) {
+                        continue;
+                    }
+
+                    String relative = uploadPath.relativize(entry).toString();
+                    if (!dryRun && !moveToTrash(entry, relative, leftover)) {
+                        continue;
+                    }
+                    orphaned++;
+                    orphanedBytes += attributes.size();
+                    if (reported.size() < MAX_REPORTED_ORPHANS) {
+                        reported.add(relative);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Čitanje direktorija {} nije uspjelo: {}", directory, e.getMessage());
+            }
+        }
+
+        // Popis referenci je snimka s početka čišćenja; ImageStorageService ponovno provjerava
+        // vrijeme izmjene i reference neposredno prije premještanja
+        private boolean moveToTrash(Path entry, String relative, boolean leftover) {
+            try {
+                if (leftover) {
+                    return Files.deleteIfExists(entry);
+                }
+                Path trash = Files.createDirectories(uploadPath.resolve(TRASH));
+                Path target = trash.resolve(relative.replace(entry.getFileSystem().getSeparator(), "__"));
+                return imageStorageService.moveToTrash(entry, target, cutoff);
+            } catch (IOException e) {
+                log.warn("Datoteka {} nije premještena u smeće: {}", relative, e.getMessage());
+                return false;
+            }
+        }
+    }
+}
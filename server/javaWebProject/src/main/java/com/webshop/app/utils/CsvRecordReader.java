@@ -0,0 +1,95 @@
+package com.webshop.app.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Čitač CSV zapisa (RFC 4180) koji čita ulaz zapis po zapis, bez učitavanja cijele datoteke.
+// Podržava navodnike, "" unutar navodnika i prijelome reda unutar polja.
+public class CsvRecordReader implements Closeable {
+
+    private final BufferedReader reader;
+    private long lineNumber = 1;
+    private long recordLineNumber;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+    }
+
+    // Redak na kojem počinje zadnji pročitani zapis
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean recordStarted = false;
+        recordLineNumber = lineNumber;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        inQuotes = false;
+                    }
+                } else {
+                    if (ch == '\n') {
+                        lineNumber++;
+                    }
+                    field.append(ch);
+                }
+                continue;
+            }
+
+            switch (ch) {
+                case '"' -> {
+                    inQuotes = true;
+                    recordStarted = true;
+                }
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    recordStarted = true;
+                }
+                case '\r' -> {
+                }
+                case '\n' -> {
+                    lineNumber++;
+                    if (!recordStarted && field.length() == 0) {
+                        // Prazan redak se preskače
+                        recordLineNumber = lineNumber;
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                }
+                default -> {
+                    field.append(ch);
+                    recordStarted = true;
+                }
+            }
+        }
+
+        if (!recordStarted && field.length() == 0) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
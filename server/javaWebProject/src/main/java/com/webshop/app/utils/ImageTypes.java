@@ -0,0 +1,28 @@
+package com.webshop.app.utils;
+
+// Prepoznavanje formata slike po prvim bajtovima sadržaja, neovisno o nazivu datoteke i Content-Type zaglavlju
+public final class ImageTypes {
+
+    public static final int HEADER_LENGTH = 12;
+
+    private ImageTypes() {
+    }
+
+    // Vraća ekstenziju (png, jpg, gif, webp) ili null ako sadržaj nije podržana slika
+    public static String sniffExtension(byte[] header, int length) {
+        if (length > 3 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        if (length > 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (length > 3 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        if (length > 11 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+}
@@ -1,24 +0,0 @@
-package com.webshop.app.utils;
-
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
-public class ImageUtils {
-
-    public static String saveFile(String directory, String fileName, MultipartFile file) throws IOException {
-        Path uploadPath = Paths.get(directory);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        Path filePath = uploadPath.resolve(fileName);
-        Files.copy(file.getInputStream(), filePath);
-
-        return "/" + fileName;
-    }
-}
@@ -0,0 +1,77 @@
+package com.webshop.app.utils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Nazivi i stanje umanjenih varijanti slika iz upload direktorija.
+// Original "/ime.jpg" ima varijante "/variants/<veličina>/ime.jpg"; dok nisu generirane vraća se original.
+public final class ImageVariants {
+
+    public static final String DIRECTORY = "variants";
+
+    public enum Size {
+        THUMBNAIL(160),
+        CARD(480),
+        DETAIL(1200);
+
+        private final int maxDimension;
+
+        Size(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+
+        public String folder() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final Set<String> READY = ConcurrentHashMap.newKeySet();
+
+    private ImageVariants() {
+    }
+
+    public static String resolve(String imageUrl, Size size) {
+        if (imageUrl == null || !READY.contains(imageUrl)) {
+            return imageUrl;
+        }
+        return "/" + DIRECTORY + "/" + size.folder() + "/" + variantFileName(fileNameOf(imageUrl));
+    }
+
+    public static void markReady(String imageUrl) {
+        READY.add(imageUrl);
+    }
+
+    // Varijante su obrisane ili premještene - do ponovnog generiranja vraća se original
+    public static void forget(String imageUrl) {
+        READY.remove(imageUrl);
+    }
+
+    // Čišćenje vidi samo naziv varijante; ekstenzija originala iz njega se ne može odrediti
+    public static void forgetVariant(String variantFileName) {
+        READY.removeIf(imageUrl -> variantFileName.equals(variantFileName(fileNameOf(imageUrl))));
+    }
+
+    // Samo slike spremljene izravno u upload direktorij ("/ime") imaju varijante
+    public static String fileNameOf(String imageUrl) {
+        if (imageUrl == null || !imageUrl.startsWith("/") || imageUrl.indexOf('/', 1) >= 0 || imageUrl.length() == 1) {
+            return null;
+        }
+        return imageUrl.substring(1);
+    }
+
+    // PNG i GIF zadržavaju prozirnost, sve ostalo se sprema kao JPEG
+    public static String variantFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return base + (keepsTransparency(fileName) ? ".png" : ".jpg");
+    }
+
+    public static boolean keepsTransparency(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".png") || lower.endsWith(".gif");
+    }
+}
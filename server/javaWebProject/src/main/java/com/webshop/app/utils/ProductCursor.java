@@ -0,0 +1,57 @@
+package com.webshop.app.utils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Neprozirni kursor za keyset paginaciju: način sortiranja, zadnja cijena i zadnji ID kao base64url
+public class ProductCursor {
+
+    public static final String MODE_ID = "id";
+    public static final String MODE_PRICE_ASC = "price-asc";
+    public static final String MODE_PRICE_DESC = "price-desc";
+
+    private final String mode;
+    private final BigDecimal lastPrice;
+    private final Long lastId;
+
+    public ProductCursor(String mode, BigDecimal lastPrice, Long lastId) {
+        this.mode = mode;
+        this.lastPrice = lastPrice;
+        this.lastId = lastId;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public BigDecimal getLastPrice() {
+        return lastPrice;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String encode() {
+        String raw = mode + "|" + (lastPrice != null ? lastPrice.toPlainString() : "") + "|" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor, String expectedMode) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !parts[0].equals(expectedMode)) {
+                throw new IllegalArgumentException("Kursor ne odgovara zadanom sortiranju.");
+            }
+            BigDecimal price = parts[1].isEmpty() ? null : new BigDecimal(parts[1]);
+            if (!MODE_ID.equals(expectedMode) && price == null) {
+                throw new IllegalArgumentException("Kursor ne sadrži cijenu.");
+            }
+            return new ProductCursor(parts[0], price, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Neispravan kursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.webshop.app.benchmark;
+
+import com.webshop.app.dto.CartItemDTO;
+import com.webshop.app.dto.OrderDTO;
+import com.webshop.app.dto.ProductDTO;
+import com.webshop.app.mapper.ProductMapper;
+import com.webshop.app.mapper.ProductMapperImpl;
+import com.webshop.app.model.*;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Usporedba stare ModelMapper konverzije s MapStruct mapperima generiranima pri kompajliranju.
+// Pokretanje: mvn test-compile, zatim main() ove klase s test classpathom.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"100", "1000"})
+    private int listSize;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final OrderMapper orderMapper = new OrderMapperImpl();
+
+    private List<Product> products;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        Category category = new Category(3, "Mobiteli", null);
+
+        products = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            products.add(new Product((long) i, "Proizvod " + i, "Opis proizvoda " + i,
+                    BigDecimal.valueOf(100 + i, 2), "/uploads/" + i + ".jpg", i % 17, category, false));
+        }
+
+        ApplicationUser user = new ApplicationUser();
+        user.setId(7);
+        user.setFirstName("Ana");
+        user.setLastName("Anić");
+        user.setEmail("ana@example.com");
+
+        order = new Order();
+        order.setId(1L);
+        order.setUser(user);
+        order.setTotalPrice(BigDecimal.TEN);
+        order.setOrderDate(LocalDateTime.now());
+        order.setPaymentMethod(PaymentMethod.PAYPAL);
+        order.setStatus(OrderStatus.CONFIRMED);
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Product product = products.get(i);
+            items.add(new OrderItem((long) i, order, product, product.getId(), 2, category, BigDecimal.ONE));
+        }
+        order.setItems(items);
+    }
+
+    @Benchmark
+    public List<ProductDTO> productListModelMapper() {
+        return products.stream().map(product -> {
+            ProductDTO dto = modelMapper.map(product, ProductDTO.class);
+            dto.setCategoryId((long) product.getCategory().getId());
+            dto.setCategoryName(product.getCategory().getName());
+            return dto;
+        }).toList();
+    }
+
+    @Benchmark
+    public List<ProductDTO> productListMapStruct() {
+        return products.stream().map(productMapper::toDTO).toList();
+    }
+
+    @Benchmark
+    public OrderDTO orderModelMapper() {
+        OrderDTO dto = modelMapper.map(order, OrderDTO.class);
+        dto.setItems(order.getItems().stream()
+                .map(item -> new CartItemDTO(Math.toIntExact(item.getProduct().getId()),
+                        item.getProduct().getName(), item.getProduct().getPrice(), item.getQuantity()))
+                .toList());
+        dto.setStatus(order.getStatus().toString());
+        dto.setUserId(Long.valueOf(order.getUser().getId()));
+        dto.setUserFirstName(order.getUser().getFirstName());
+        dto.setUserLastName(order.getUser().getLastName());
+        dto.setUserEmail(order.getUser().getEmail());
+        return dto;
+    }
+
+    @Benchmark
+    public OrderDTO orderMapStruct() {
+        return orderMapper.toDTO(order);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MappingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,26 @@
+package com.webshop.app.benchmark;
+
+import com.webshop.app.dto.CartItemDTO;
+import com.webshop.app.dto.OrderDTO;
+import com.webshop.app.model.Order;
+import com.webshop.app.model.OrderItem;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+// Narudžbe se čitaju kao DTO projekcije (OrderRepository); entitetski mapper ostaje samo kao
+// referenca za MappingBenchmark, zato je u test scopeu i nije Spring bean
+@Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface OrderMapper {
+
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "userFirstName", source = "user.firstName")
+    @Mapping(target = "userLastName", source = "user.lastName")
+    @Mapping(target = "userEmail", source = "user.email")
+    OrderDTO toDTO(Order order);
+
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "productName", source = "product.name")
+    @Mapping(target = "price", source = "product.price")
+    CartItemDTO toCartItemDTO(OrderItem orderItem);
+}
@@ -0,0 +1,195 @@
+package com.webshop.app.benchmark;
+
+import com.paypal.api.payments.Payment;
+import com.paypal.base.rest.PayPalRESTException;
+import com.sun.net.httpserver.HttpServer;
+import com.webshop.app.service.PaypalClient;
+import com.webshop.app.service.PaypalService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Koliko dugo katalog GET zahtjevi čekaju dok PayPal sporo odgovara: checkout koji blokira
+// Tomcat dretvu naspram checkouta koji PayPal poziv predaje PaypalClient-u.
+// PayPal je lokalni HTTP stub s umjetnim kašnjenjem; "Tomcat" je fiksni pool od 20 dretvi.
+// Pokretanje: mvn test-compile, zatim main() ove klase s test classpathom.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PaypalCheckoutBenchmark {
+
+    private static final int REQUEST_THREADS = 20;
+    private static final int CHECKOUTS = 100;
+    private static final int CATALOG_REQUESTS = 200;
+
+    @Param({"200", "1000"})
+    private long paypalLatencyMs;
+
+    private HttpServer paypalStub;
+    private ExecutorService stubExecutor;
+    private ExecutorService requestThreads;
+    private PaypalService paypalService;
+    private PaypalClient paypalClient;
+
+    private final List<Future<?>> blockingCheckouts = new ArrayList<>();
+    private final List<CompletableFuture<Payment>> asyncCheckouts = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stubExecutor = Executors.newCachedThreadPool();
+        paypalStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        paypalStub.createContext("/v1/payments/payment", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+                Thread.sleep(paypalLatencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = "{\"id\":\"PAY-STUB\",\"state\":\"created\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(201, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        paypalStub.setExecutor(stubExecutor);
+        paypalStub.start();
+
+        paypalService = new StubPaypalService("http://127.0.0.1:" + paypalStub.getAddress().getPort());
+        paypalClient = new PaypalClient(paypalService, 16, CHECKOUTS, 4);
+        requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestThreads.shutdownNow();
+        paypalClient.shutdown();
+        paypalStub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    // Checkouti moraju završiti prije sljedećeg mjerenja, inače bi ono krenulo s već zauzetim dretvama
+    @TearDown(Level.Invocation)
+    public void awaitCheckouts() throws Exception {
+        for (Future<?> checkout : blockingCheckouts) {
+            checkout.get();
+        }
+        for (CompletableFuture<Payment> checkout : asyncCheckouts) {
+            checkout.join();
+        }
+        blockingCheckouts.clear();
+        asyncCheckouts.clear();
+    }
+
+    @Benchmark
+    public void catalogWhileCheckoutBlocks(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < CHECKOUTS; i++) {
+            blockingCheckouts.add(requestThreads.submit(() -> {
+                blackhole.consume(paypalService.createPayment(10.0, "EUR", "paypal", "sale",
+                        "Order", "http://localhost/cancel", "http://localhost/success"));
+                return null;
+            }));
+        }
+        awaitCatalog(blackhole);
+    }
+
+    @Benchmark
+    public void catalogWhileCheckoutIsAsync(Blackhole blackhole) throws Exception {
+        List<Future<?>> submissions = new ArrayList<>(CHECKOUTS);
+        for (int i = 0; i < CHECKOUTS; i++) {
+            submissions.add(requestThreads.submit(() -> {
+                CompletableFuture<Payment> payment = paypalClient.createPayment(10.0, "EUR", "paypal", "sale",
+                        "Order", "http://localhost/cancel", "http://localhost/success");
+                synchronized (asyncCheckouts) {
+                    asyncCheckouts.add(payment);
+                }
+            }));
+        }
+        blockingCheckouts.addAll(submissions);
+        awaitCatalog(blackhole);
+    }
+
+    private void awaitCatalog(Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CATALOG_REQUESTS);
+        for (int i = 0; i < CATALOG_REQUESTS; i++) {
+            requestThreads.execute(() -> {
+                Blackhole.consumeCPU(10_000);
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+    // Blokirajući HTTP poziv prema stubu - isto ponašanje kao PayPal SDK, bez OAuth koraka
+    private static final class StubPaypalService implements PaypalService {
+
+        private final String baseUrl;
+
+        private StubPaypalService(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public Payment createPayment(Double total, String currency, String method, String intent,
+                                     String description, String cancelUrl, String successUrl)
+                throws PayPalRESTException {
+            return call("/v1/payments/payment", "{\"intent\":\"" + intent + "\"}");
+        }
+
+        @Override
+        public Payment executePayment(String paymentId, String payerId) throws PayPalRESTException {
+            return call("/v1/payments/payment", "{\"payer_id\":\"" + payerId + "\"}");
+        }
+
+        private Payment call(String path, String json) throws PayPalRESTException {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(json.getBytes(StandardCharsets.UTF_8));
+                }
+                try (InputStream in = connection.getInputStream()) {
+                    in.readAllBytes();
+                }
+
+                Payment payment = new Payment();
+                payment.setId("PAY-STUB");
+                payment.setState("created");
+                return payment;
+            } catch (IOException e) {
+                throw new PayPalRESTException(e.getMessage(), e);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PaypalCheckoutBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.webshop.app.filter;
+
+import com.webshop.app.service.CatalogVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogETagFilterTest {
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+    private final CatalogETagFilter filter = new CatalogETagFilter(catalogVersion);
+
+    @Test
+    void repeatedRequestWithCurrentETagGets304() throws Exception {
+        MockHttpServletResponse first = get(null);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+
+        assertEquals(200, first.getStatus());
+        assertNotNull(etag);
+        assertEquals("private, no-cache", first.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(HttpHeaders.AUTHORIZATION, first.getHeader(HttpHeaders.VARY));
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse second = get(etag, chain);
+
+        assertEquals(304, second.getStatus());
+        assertEquals(etag, second.getHeader(HttpHeaders.ETAG));
+        assertEquals("private, no-cache", second.getHeader(HttpHeaders.CACHE_CONTROL));
+        // 304 se vraća prije kontrolera
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void catalogChangeInvalidatesETag() throws Exception {
+        String etag = get(null).getHeader(HttpHeaders.ETAG);
+
+        catalogVersion.onProductsBulkChanged(null);
+        MockHttpServletResponse response = get(etag);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(catalogVersion.etag(), response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch) throws Exception {
+        return get(ifNoneMatch, new MockFilterChain());
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,121 @@
+package com.webshop.app.service;
+
+import com.webshop.app.exception.InsufficientStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Radi nad stvarnom bazom (kao i contextLoads); testni proizvodi se brišu nakon svakog testa
+@SpringBootTest
+class InventoryServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 100;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> createdProductIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        createdProductIds.forEach(id -> jdbcTemplate.update("DELETE FROM product WHERE id = ?", id));
+        createdProductIds.clear();
+    }
+
+    @Test
+    void concurrentDecrementsNeverOversellOneProduct() throws Exception {
+        long productId = createProduct(INITIAL_STOCK);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            transactionTemplate.executeWithoutResult(status ->
+                                    inventoryService.decrementStock(Map.of(productId, 1)));
+                            sold.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(INITIAL_STOCK, sold.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - INITIAL_STOCK, rejected.get());
+        assertEquals(0, stockOf(productId));
+    }
+
+    @Test
+    void orderFailsWholeWhenAnyLineCannotBeFulfilled() {
+        long available = createProduct(5);
+        long soldOut = createProduct(0);
+
+        assertThrows(InsufficientStockException.class, () -> transactionTemplate.executeWithoutResult(status ->
+                inventoryService.decrementStock(Map.of(available, 2, soldOut, 1))));
+
+        assertEquals(5, stockOf(available));
+        assertEquals(0, stockOf(soldOut));
+    }
+
+    private long createProduct(int stock) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO product (name, price, stock, deleted) VALUES (?, 1.00, ?, false)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, "inventory-test-" + System.nanoTime());
+            ps.setInt(2, stock);
+            return ps;
+        }, keyHolder);
+        long id = keyHolder.getKey().longValue();
+        createdProductIds.add(id);
+        return id;
+    }
+
+    private int stockOf(long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM product WHERE id = ?", Integer.class, productId);
+    }
+}